@@ -0,0 +1,122 @@
+package com.tdd.study;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Scope;
+import jakarta.inject.Singleton;
+import java.lang.annotation.Retention;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * throughput of one shared context resolved from every core, rerun with -t 1, -t 2, ... to see
+ * how each binding kind scales with the number of threads
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(Threads.MAX)
+@Fork(1)
+public class ConcurrentResolutionBenchmark {
+
+  @Singleton
+  static class Shared {
+
+  }
+
+  static class Prototype {
+
+    @Inject
+    public Prototype(Shared shared) {
+    }
+  }
+
+  @PerContext
+  static class Scoped {
+
+    @Inject
+    public Scoped(Shared shared) {
+    }
+  }
+
+  @Scope
+  @Retention(RUNTIME)
+  @interface PerContext {
+
+  }
+
+  static class PerContextScope implements ScopeProvider<Object> {
+
+    /**
+     * outside a container binding there is no slot, instances are kept in a map per context
+     */
+    @Override
+    public ComponentProvider<Object> create(ComponentProvider<?> provider) {
+      Map<Context, Object> instances = new ConcurrentHashMap<>();
+      return context -> instances.computeIfAbsent(context, provider::get);
+    }
+
+    @Override
+    public ComponentProvider<Object> create(ComponentProvider<?> provider, ScopeContext scope) {
+      return context -> scope.instances(context)
+          .computeIfAbsent(scope.slot(), (ComponentProvider<Object>) provider);
+    }
+  }
+
+  private Context context;
+
+  private final ComponentRef<Shared> singleton = ComponentRef.of(Shared.class);
+
+  private final ComponentRef<Prototype> prototype = ComponentRef.of(Prototype.class);
+
+  private final ComponentRef<Scoped> scoped = ComponentRef.of(Scoped.class);
+
+  private Provider<Prototype> provider;
+
+  @Setup
+  public void setUp() {
+    ContextConfig config = new ContextConfig();
+    config.scope(PerContext.class, new PerContextScope());
+    config.bind(Shared.class, Shared.class);
+    config.bind(Prototype.class, Prototype.class);
+    config.bind(Scoped.class, Scoped.class);
+    context = config.getContext();
+    provider = context.get(new ComponentRef<Provider<Prototype>>() {
+    }).get();
+  }
+
+  @Benchmark
+  public Object singleton() {
+    return context.get(singleton).get();
+  }
+
+  @Benchmark
+  public Object prototype() {
+    return context.get(prototype).get();
+  }
+
+  @Benchmark
+  public Object provider() {
+    return provider.get();
+  }
+
+  @Benchmark
+  public Object customScope() {
+    return context.get(scoped).get();
+  }
+}
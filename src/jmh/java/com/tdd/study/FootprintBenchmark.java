@@ -0,0 +1,110 @@
+package com.tdd.study;
+
+import com.tdd.study.SyntheticGraph.Injection;
+import com.tdd.study.SyntheticGraph.Shape;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * heap retained per binding by a config and the context created from it, reported as the
+ * bytesPerBinding counter, compare compact=false with compact=true. Every binding has its own
+ * implementation class from a synthetic graph, so the number reflects interned refs and slot
+ * arrays rather than providers shared by one implementation
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseSerialGC"})
+public class FootprintBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Graph {
+
+    @Param({"10000"})
+    public int count;
+
+    @Param({"6"})
+    public int depth;
+
+    @Param({"3"})
+    public int fanOut;
+
+    @Param({"0.2"})
+    public double qualified;
+
+    @Param({"0.3"})
+    public double singletons;
+
+    @Param({"MIXED"})
+    public Injection injection;
+
+    SyntheticGraph graph;
+
+    Class<?>[] classes;
+
+    @Setup(Level.Trial)
+    public void generate() {
+      graph = SyntheticGraph.generate(
+          new Shape(count, depth, fanOut, qualified, singletons, injection, 42));
+    }
+
+    /**
+     * the reflection data the JDK caches per class is filled before measuring, it is retained
+     * whether or not the container is compact
+     */
+    @Setup(Level.Invocation)
+    public void load() {
+      classes = graph.load();
+      for (Class<?> type : classes) {
+        type.getDeclaredConstructors();
+        type.getDeclaredFields();
+        type.getDeclaredMethods();
+        type.getAnnotations();
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Footprint {
+
+    @Param({"false", "true"})
+    public boolean compact;
+
+    public double bytesPerBinding;
+  }
+
+  @Benchmark
+  public Object bind(Graph graph, Footprint footprint) {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    memory.gc();
+    long before = memory.getHeapMemoryUsage().getUsed();
+
+    ContextConfig config = new ContextConfig();
+    if (footprint.compact) {
+      config.compact();
+    }
+    graph.graph.bind(config, graph.classes);
+    Context context = config.getContext();
+
+    memory.gc();
+    footprint.bytesPerBinding =
+        (double) (memory.getHeapMemoryUsage().getUsed() - before) / graph.classes.length;
+    return new Object[]{config, context};
+  }
+}
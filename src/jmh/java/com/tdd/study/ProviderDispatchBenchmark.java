@@ -0,0 +1,137 @@
+package com.tdd.study;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Scope;
+import jakarta.inject.Singleton;
+import java.lang.annotation.Retention;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * resolution cost per binding kind, run with -PprintInlining to check the call sites are inlined
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProviderDispatchBenchmark {
+
+  interface Constant {
+
+  }
+
+  static class Prototype {
+
+    @Inject
+    public Prototype(Constant constant, Cached cached) {
+    }
+  }
+
+  static class StablePrototype {
+
+    @Inject
+    public StablePrototype(Constant constant, Shared shared) {
+    }
+  }
+
+  @Singleton
+  static class Shared {
+
+    @Inject
+    public Shared(Constant constant) {
+    }
+  }
+
+  @Custom
+  static class Cached {
+
+  }
+
+  @Scope
+  @Retention(RUNTIME)
+  @interface Custom {
+
+  }
+
+  static class CachedProvider<T> implements ComponentProvider<T> {
+
+    private final ComponentProvider<T> provider;
+
+    private T instance;
+
+    CachedProvider(ComponentProvider<T> provider) {
+      this.provider = provider;
+    }
+
+    @Override
+    public T get(Context context) {
+      if (instance == null) {
+        instance = provider.get(context);
+      }
+      return instance;
+    }
+  }
+
+  private Context context;
+
+  private final ComponentRef<Constant> constant = ComponentRef.of(Constant.class);
+
+  private final ComponentRef<Prototype> prototype = ComponentRef.of(Prototype.class);
+
+  private final ComponentRef<StablePrototype> stablePrototype = ComponentRef.of(
+      StablePrototype.class);
+
+  private final ComponentRef<Shared> singleton = ComponentRef.of(Shared.class);
+
+  private final ComponentRef<Cached> custom = ComponentRef.of(Cached.class);
+
+  @Setup
+  public void setUp() {
+    ContextConfig config = new ContextConfig();
+    config.scope(Custom.class, CachedProvider::new);
+    config.bind(Constant.class, new Constant() {
+    });
+    config.bind(Prototype.class, Prototype.class);
+    config.bind(StablePrototype.class, StablePrototype.class);
+    config.bind(Shared.class, Shared.class);
+    config.bind(Cached.class, Cached.class);
+    context = config.getContext();
+  }
+
+  @Benchmark
+  public Object constant() {
+    return context.get(constant).get();
+  }
+
+  @Benchmark
+  public Object prototype() {
+    return context.get(prototype).get();
+  }
+
+  @Benchmark
+  public Object stablePrototype() {
+    return context.get(stablePrototype).get();
+  }
+
+  @Benchmark
+  public Object singleton() {
+    return context.get(singleton).get();
+  }
+
+  @Benchmark
+  public Object customScope() {
+    return context.get(custom).get();
+  }
+}
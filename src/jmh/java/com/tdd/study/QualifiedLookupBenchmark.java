@@ -0,0 +1,113 @@
+package com.tdd.study;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import java.lang.annotation.Annotation;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * lookups in a graph where every type is bound under many @Named qualifiers, by a ref kept
+ * around, by a ref built for each call and by a ref holding the annotation proxy the JDK reads
+ * from a class file
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QualifiedLookupBenchmark {
+
+  interface Repository {
+
+  }
+
+  static class Service {
+
+    @Inject
+    public Service(@Named("0") Repository first, @Named("7") Repository second,
+        @Named("15") Repository third) {
+    }
+  }
+
+  static class Annotated {
+
+    @Named("15")
+    Repository repository;
+  }
+
+  record NamedLiteral(String value) implements Named {
+
+    @Override
+    public Class<? extends Annotation> annotationType() {
+      return Named.class;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Named named && value.equals(named.value());
+    }
+
+    @Override
+    public int hashCode() {
+      return "value".hashCode() * 127 ^ value.hashCode();
+    }
+  }
+
+  @Param({"16"})
+  public int qualifiers;
+
+  private Context context;
+
+  private ComponentRef<Repository> kept;
+
+  private ComponentRef<Repository> proxied;
+
+  private ComponentRef<Service> service;
+
+  @Setup
+  public void setUp() throws NoSuchFieldException {
+    ContextConfig config = new ContextConfig();
+    for (int i = 0; i < qualifiers; i++) {
+      config.bind(Repository.class, new Repository() {
+      }, new NamedLiteral(String.valueOf(i)));
+      config.bind(Service.class, Service.class, new NamedLiteral(String.valueOf(i)));
+    }
+    context = config.getContext();
+    kept = ComponentRef.of(Repository.class, new NamedLiteral("15"));
+    proxied = ComponentRef.of(Repository.class,
+        Annotated.class.getDeclaredField("repository").getAnnotation(Named.class));
+    service = ComponentRef.of(Service.class, new NamedLiteral("15"));
+  }
+
+  @Benchmark
+  public Object keptRef() {
+    return context.get(kept).get();
+  }
+
+  @Benchmark
+  public Object newRef() {
+    return context.get(ComponentRef.of(Repository.class, new NamedLiteral("15"))).get();
+  }
+
+  @Benchmark
+  public Object annotationProxy() {
+    return context.get(proxied).get();
+  }
+
+  @Benchmark
+  public Object qualifiedDependencies() {
+    return context.get(service).get();
+  }
+}
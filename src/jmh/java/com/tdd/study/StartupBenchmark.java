@@ -0,0 +1,119 @@
+package com.tdd.study;
+
+import com.sun.management.ThreadMXBean;
+import com.tdd.study.SyntheticGraph.Injection;
+import com.tdd.study.SyntheticGraph.Shape;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * cold start of a synthetic graph: bind (where the injection providers are built), getContext
+ * (where dependencies are checked) and resolving every root once, each on classes loaded fresh
+ * for the invocation. The time and bytes allocated by each phase are reported as counters
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class StartupBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Graph {
+
+    @Param({"200", "2000"})
+    public int count;
+
+    @Param({"6"})
+    public int depth;
+
+    @Param({"3"})
+    public int fanOut;
+
+    @Param({"0.2"})
+    public double qualified;
+
+    @Param({"0.3"})
+    public double singletons;
+
+    @Param({"MIXED"})
+    public Injection injection;
+
+    SyntheticGraph graph;
+
+    Class<?>[] classes;
+
+    List<ComponentRef<?>> roots;
+
+    @Setup(Level.Trial)
+    public void generate() {
+      graph = SyntheticGraph.generate(
+          new Shape(count, depth, fanOut, qualified, singletons, injection, 42));
+    }
+
+    @Setup(Level.Invocation)
+    public void load() {
+      classes = graph.load();
+      roots = graph.roots(classes);
+    }
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Phases {
+
+    public double bindMillis;
+
+    public double contextMillis;
+
+    public double resolveMillis;
+
+    public double bindBytes;
+
+    public double contextBytes;
+
+    public double resolveBytes;
+  }
+
+  @Benchmark
+  public Object startup(Graph graph, Phases phases) {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long started = System.nanoTime();
+    long allocated = threads.getCurrentThreadAllocatedBytes();
+
+    ContextConfig config = new ContextConfig();
+    graph.graph.bind(config, graph.classes);
+    long bound = System.nanoTime();
+    long bindAllocated = threads.getCurrentThreadAllocatedBytes();
+
+    Context context = config.getContext();
+    long created = System.nanoTime();
+    long contextAllocated = threads.getCurrentThreadAllocatedBytes();
+
+    Object[] roots = graph.roots.stream().map(ref -> context.get(ref).get()).toArray();
+    long resolved = System.nanoTime();
+    long resolveAllocated = threads.getCurrentThreadAllocatedBytes();
+
+    phases.bindMillis = (bound - started) / 1e6;
+    phases.contextMillis = (created - bound) / 1e6;
+    phases.resolveMillis = (resolved - created) / 1e6;
+    phases.bindBytes = bindAllocated - allocated;
+    phases.contextBytes = contextAllocated - bindAllocated;
+    phases.resolveBytes = resolveAllocated - contextAllocated;
+    return roots;
+  }
+}
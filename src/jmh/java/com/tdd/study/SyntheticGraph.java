@@ -0,0 +1,219 @@
+package com.tdd.study;
+
+import jakarta.inject.Named;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.stream.IntStream;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/**
+ * a layered component graph compiled from generated sources, components of a layer depend on
+ * components of the next one, load() defines the classes again in a fresh class loader so every
+ * run binds classes the container has never seen
+ */
+final class SyntheticGraph {
+
+  private static final String PACKAGE = "com.tdd.study.synthetic";
+
+  enum Injection {
+    CONSTRUCTOR, FIELD, METHOD, MIXED
+  }
+
+  /**
+   * qualified and singletons are the fractions of components bound with a @Named qualifier and
+   * annotated @Singleton
+   */
+  record Shape(int count, int depth, int fanOut, double qualified, double singletons,
+               Injection injection, long seed) {
+
+  }
+
+  private record Node(String name, int layer, boolean qualified, boolean singleton,
+                      Injection injection, List<Node> dependencies) {
+
+  }
+
+  private final List<Node> nodes;
+
+  private final Map<String, byte[]> classes;
+
+  private SyntheticGraph(List<Node> nodes, Map<String, byte[]> classes) {
+    this.nodes = nodes;
+    this.classes = classes;
+  }
+
+  static SyntheticGraph generate(Shape shape) {
+    List<Node> nodes = nodes(shape);
+    return new SyntheticGraph(nodes, compile(nodes));
+  }
+
+  private static List<Node> nodes(Shape shape) {
+    Random random = new Random(shape.seed());
+    List<List<Node>> layers = new ArrayList<>();
+    List<Node> nodes = new ArrayList<>();
+    for (int layer = shape.depth() - 1; layer >= 0; layer--) {
+      int size = shape.count() / shape.depth() + (layer < shape.count() % shape.depth() ? 1 : 0);
+      List<Node> next = layers.isEmpty() ? List.of() : layers.get(0);
+      List<Node> current = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        List<Node> dependencies = new ArrayList<>(next);
+        Collections.shuffle(dependencies, random);
+        int index = nodes.size();
+        Injection injection = shape.injection() != Injection.MIXED ? shape.injection()
+            : Injection.values()[index % 3];
+        Node node = new Node("C" + index, layer, random.nextDouble() < shape.qualified(),
+            random.nextDouble() < shape.singletons(), injection,
+            List.copyOf(dependencies.subList(0, Math.min(shape.fanOut(), dependencies.size()))));
+        current.add(node);
+        nodes.add(node);
+      }
+      layers.add(0, current);
+    }
+    return nodes;
+  }
+
+  private static String source(Node node) {
+    StringBuilder source = new StringBuilder("package " + PACKAGE + ";\n\n");
+    if (node.singleton()) {
+      source.append("@jakarta.inject.Singleton\n");
+    }
+    source.append("public class ").append(node.name()).append(" {\n");
+    StringJoiner parameters = new StringJoiner(", ");
+    for (int i = 0; i < node.dependencies().size(); i++) {
+      parameters.add(dependency(node.dependencies().get(i)) + " d" + i);
+    }
+    switch (node.injection()) {
+      case CONSTRUCTOR -> source.append("  @jakarta.inject.Inject public ").append(node.name())
+          .append("(").append(parameters).append(") {}\n");
+      case FIELD -> {
+        for (int i = 0; i < node.dependencies().size(); i++) {
+          source.append("  @jakarta.inject.Inject public ")
+              .append(dependency(node.dependencies().get(i))).append(" d").append(i)
+              .append(";\n");
+        }
+      }
+      default -> source.append("  @jakarta.inject.Inject public void install(")
+          .append(parameters).append(") {}\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private static String dependency(Node node) {
+    return (node.qualified() ? "@jakarta.inject.Named(\"" + node.name() + "\") " : "")
+        + node.name();
+  }
+
+  private static Map<String, byte[]> compile(List<Node> nodes) {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    Map<String, byte[]> classes = new HashMap<>();
+    JavaFileManager files = new ForwardingJavaFileManager<>(
+        compiler.getStandardFileManager(null, null, null)) {
+      @Override
+      public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind,
+          FileObject sibling) {
+        return new SimpleJavaFileObject(URI.create("bytes:///" + className), kind) {
+          @Override
+          public OutputStream openOutputStream() {
+            return new ByteArrayOutputStream() {
+              @Override
+              public void close() {
+                classes.put(className, toByteArray());
+              }
+            };
+          }
+        };
+      }
+    };
+    List<JavaFileObject> sources = nodes.stream().<JavaFileObject>map(
+        node -> new SimpleJavaFileObject(URI.create("string:///" + node.name() + ".java"),
+            Kind.SOURCE) {
+          @Override
+          public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source(node);
+          }
+        }).toList();
+    if (!compiler.getTask(null, files, null,
+        List.of("-classpath", System.getProperty("java.class.path")), null, sources).call()) {
+      throw new IllegalStateException("synthetic components did not compile");
+    }
+    return classes;
+  }
+
+  /**
+   * the generated classes indexed like the nodes
+   */
+  Class<?>[] load() {
+    ClassLoader loader = new ClassLoader(SyntheticGraph.class.getClassLoader()) {
+      @Override
+      protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes = classes.get(name);
+        if (bytes == null) {
+          throw new ClassNotFoundException(name);
+        }
+        return defineClass(name, bytes, 0, bytes.length);
+      }
+    };
+    return nodes.stream().map(node -> {
+      try {
+        return loader.loadClass(PACKAGE + "." + node.name());
+      } catch (ClassNotFoundException e) {
+        throw new IllegalStateException(e);
+      }
+    }).toArray(Class<?>[]::new);
+  }
+
+  void bind(ContextConfig config, Class<?>[] classes) {
+    for (int i = 0; i < classes.length; i++) {
+      bind(config, classes[i], nodes.get(i).qualified()
+          ? new Annotation[]{new NamedLiteral(nodes.get(i).name())} : new Annotation[0]);
+    }
+  }
+
+  private static <T> void bind(ContextConfig config, Class<T> type, Annotation[] qualifiers) {
+    config.bind(type, type, qualifiers);
+  }
+
+  /**
+   * refs to the components of the first layer, resolving them builds the whole graph
+   */
+  List<ComponentRef<?>> roots(Class<?>[] classes) {
+    return IntStream.range(0, classes.length).filter(i -> nodes.get(i).layer() == 0)
+        .<ComponentRef<?>>mapToObj(i -> nodes.get(i).qualified()
+            ? ComponentRef.of(classes[i], new NamedLiteral(nodes.get(i).name()))
+            : ComponentRef.of(classes[i])).toList();
+  }
+
+  record NamedLiteral(String value) implements Named {
+
+    @Override
+    public Class<? extends Annotation> annotationType() {
+      return Named.class;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Named named && value.equals(named.value());
+    }
+
+    @Override
+    public int hashCode() {
+      return "value".hashCode() * 127 ^ value.hashCode();
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.tdd.study;
+
+import java.util.List;
+
+record AssistedProvider<T>(InjectionProvider<T> provider, boolean keyed) implements
+    ComponentProvider<T> {
+
+  @Override
+  public T get(Context context) {
+    return provider.get(context);
+  }
+
+  T get(Context context, Object[] arguments) {
+    return provider.get(context, arguments);
+  }
+
+  @Override
+  public void destroy(T instance) {
+    provider.destroy(instance);
+  }
+
+  @Override
+  public List<ComponentRef<?>> getDependencies() {
+    return provider.getDependencies();
+  }
+}
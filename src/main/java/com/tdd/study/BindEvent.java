@@ -0,0 +1,28 @@
+package com.tdd.study;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.tdd.study.Bind")
+@Label("Component Reflection")
+@Category({"Dependency Injection", "Startup"})
+@Description("Reflection on a component implementation for its injection points")
+@StackTrace(false)
+final class BindEvent extends Event {
+
+  @Label("Implementation")
+  Class<?> implementation;
+
+  @Label("Dependencies")
+  int dependencies;
+
+  @Label("Inject Fields")
+  int fields;
+
+  @Label("Inject Methods")
+  int methods;
+}
@@ -0,0 +1,99 @@
+package com.tdd.study;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * what a ContextConfig has bound, laid out by slot. It never changes once built, so every context
+ * got from the config until the next bind shares it and only allocates its own instances
+ */
+final class Bindings {
+
+  final long version;
+
+  final Map<Class<?>, QualifierTable> index;
+
+  final QualifierIds qualifiers;
+
+  final ComponentProvider<?>[] providers;
+
+  final Component[] components;
+
+  final Object[] constants;
+
+  final SingletonProvider<?>[] singletonProviders;
+
+  final Component[] singletonComponents;
+
+  final boolean[] stable;
+
+  final Map<Class<?>, ScopeProvider<?>> scopes;
+
+  final Map<Class<?>, Integer> scopedSlots;
+
+  final Consumer<Component> validator;
+
+  /**
+   * components the validator accepted, shared by the contexts since the bindings are the same
+   */
+  final boolean[] validated;
+
+  final ResolutionTracer tracer;
+
+  Bindings(long version, Map<Component, Integer> slots, Map<Class<?>, QualifierTable> index,
+      QualifierIds qualifiers, Map<Component, ComponentProvider<?>> components,
+      int componentSlots, int singletonSlots, Map<Class<?>, ScopeProvider<?>> scopes,
+      Map<Class<?>, Integer> scopedSlots, Consumer<Component> validator,
+      ResolutionTracer tracer) {
+    this.version = version;
+    this.index = index;
+    this.qualifiers = qualifiers;
+    this.providers = new ComponentProvider<?>[componentSlots];
+    this.components = new Component[componentSlots];
+    this.constants = new Object[componentSlots];
+    this.singletonProviders = new SingletonProvider<?>[singletonSlots];
+    this.singletonComponents = new Component[singletonSlots];
+    this.scopes = scopes;
+    this.scopedSlots = scopedSlots;
+    this.validator = validator;
+    this.validated = validator == null ? null : new boolean[componentSlots];
+    this.tracer = tracer;
+    components.forEach((component, provider) -> {
+      int slot = slots.get(component);
+      providers[slot] = provider;
+      this.components[slot] = component;
+      if (provider instanceof InstanceProvider<?> constant) {
+        constants[slot] = constant.instance();
+      }
+      if (provider instanceof SingletonProvider<?> singleton) {
+        singletonProviders[singleton.slot()] = singleton;
+        singletonComponents[singleton.slot()] = component;
+      }
+    });
+    this.stable = new boolean[componentSlots];
+    for (int slot = 0; slot < componentSlots; slot++) {
+      stable[slot] = providers[slot] instanceof InjectionProvider<?> prototype
+          && !prototype.isAssisted() && prototype.getDependencies().stream()
+          .allMatch(this::isStable);
+    }
+  }
+
+  /**
+   * a qualified lookup is a lookup by class and a search of a few ints, the qualifier is hashed
+   * only the first time a ref is used with this config
+   */
+  int slotOf(ComponentRef<?> ref) {
+    QualifierTable table = index.get(ref.component().type());
+    if (table == null) {
+      return -1;
+    }
+    int id = ref.qualifierId(qualifiers);
+    return id < 0 ? -1 : table.slot(id);
+  }
+
+  private boolean isStable(ComponentRef<?> ref) {
+    int slot = slotOf(ref);
+    return !ref.isContainer() && slot >= 0 && (providers[slot] instanceof InstanceProvider<?>
+        || providers[slot] instanceof SingletonProvider<?>);
+  }
+}
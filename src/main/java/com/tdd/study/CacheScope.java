@@ -0,0 +1,239 @@
+package com.tdd.study;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * caches instances of the components bound to a scope per context, bounded by size (least
+ * recently used first) and by age, stale instances may be rebuilt in the background while the
+ * cached one is still served. Instances leaving the cache are destroyed
+ */
+public final class CacheScope implements ScopeProvider<Object> {
+
+  private long maximumSize = Long.MAX_VALUE;
+
+  private long expireAfterWrite = Long.MAX_VALUE;
+
+  private long refreshAfterWrite = Long.MAX_VALUE;
+
+  private Executor refresher;
+
+  private LongSupplier ticker = System::nanoTime;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  private final LongAdder refreshes = new LongAdder();
+
+  /**
+   * the bound applies to each context on its own
+   */
+  public CacheScope maximumSize(long maximumSize) {
+    this.maximumSize = maximumSize;
+    return this;
+  }
+
+  public CacheScope expireAfterWrite(Duration duration) {
+    this.expireAfterWrite = duration.toNanos();
+    return this;
+  }
+
+  /**
+   * instances older than the duration are served once more while a new one is built on the
+   * refresher
+   */
+  public CacheScope refreshAfterWrite(Duration duration, Executor refresher) {
+    this.refreshAfterWrite = duration.toNanos();
+    this.refresher = refresher;
+    return this;
+  }
+
+  CacheScope ticker(LongSupplier ticker) {
+    this.ticker = ticker;
+    return this;
+  }
+
+  /**
+   * outside a container binding there are no per-context slots, each context gets storage of its
+   * own for the provider, dropped with the context
+   */
+  @Override
+  public ComponentProvider<Object> create(ComponentProvider<?> provider) {
+    Map<Context, ScopedInstances> instances = Collections.synchronizedMap(new WeakHashMap<>());
+    return new CachedProvider((ComponentProvider<Object>) provider, 0,
+        context -> instances.computeIfAbsent(context, key -> new ScopedInstances(key, 1)));
+  }
+
+  /**
+   * entries live in the context's own slots, so a hit is a volatile read and they are destroyed
+   * with the rest of the scope when the context is closed
+   */
+  @Override
+  public ComponentProvider<Object> create(ComponentProvider<?> provider, ScopeContext scope) {
+    return new CachedProvider((ComponentProvider<Object>) provider, scope.slot(),
+        scope::instances);
+  }
+
+  public Stats stats() {
+    return new Stats(hits.sum(), misses.sum(), evictions.sum(), refreshes.sum());
+  }
+
+  public record Stats(long hits, long misses, long evictions, long refreshes) {
+
+  }
+
+  private static final class Entry {
+
+    private final Object instance;
+
+    private final long written;
+
+    private volatile long used;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(Object instance, long written) {
+      this.instance = instance;
+      this.written = written;
+      this.used = written;
+    }
+  }
+
+  private final class CachedProvider implements ComponentProvider<Object> {
+
+    private final ComponentProvider<Object> provider;
+
+    private final int slot;
+
+    private final Function<Context, ScopedInstances> instances;
+
+    CachedProvider(ComponentProvider<Object> provider, int slot,
+        Function<Context, ScopedInstances> instances) {
+      this.provider = provider;
+      this.slot = slot;
+      this.instances = instances;
+    }
+
+    /**
+     * concurrent misses on a slot wait for the first one to construct the instance
+     */
+    @Override
+    public Object get(Context context) {
+      ScopedInstances cached = instances.apply(context);
+      long now = ticker.getAsLong();
+      if (cached.get(slot) instanceof Entry entry) {
+        if (now - entry.written < expireAfterWrite) {
+          hits.increment();
+          entry.used = now;
+          if (now - entry.written >= refreshAfterWrite && entry.refreshing.compareAndSet(false,
+              true)) {
+            refresher.execute(() -> refresh(context, cached, entry));
+          }
+          return entry.instance;
+        }
+        evict(cached, slot, entry);
+      }
+      Loader loader = new Loader();
+      Entry entry = cached.computeIfAbsent(slot, loader);
+      if (loader.loaded) {
+        evictOverMaximumSize(cached, entry);
+      } else {
+        hits.increment();
+      }
+      return entry.instance;
+    }
+
+    /**
+     * the new instance only replaces the stale one if it is still cached, the replaced instance
+     * is destroyed. A failed refresh keeps serving the stale one
+     */
+    private void refresh(Context context, ScopedInstances cached, Entry stale) {
+      try {
+        Object instance = provider.get(context);
+        if (cached.replace(slot, stale, new Entry(instance, ticker.getAsLong()))) {
+          refreshes.increment();
+          provider.destroy(stale.instance);
+        } else {
+          provider.destroy(instance);
+        }
+      } catch (RuntimeException ignored) {
+      } finally {
+        stale.refreshing.set(false);
+      }
+    }
+
+    /**
+     * the least recently used entries of the context over maximumSize, other than the one just
+     * loaded, are removed and destroyed
+     */
+    private void evictOverMaximumSize(ScopedInstances cached, Entry loaded) {
+      if (maximumSize == Long.MAX_VALUE) {
+        return;
+      }
+      while (true) {
+        int size = 0;
+        int eldest = -1;
+        Entry eldestEntry = null;
+        for (int slot = 0; slot < cached.slots(); slot++) {
+          if (cached.get(slot) instanceof Entry entry) {
+            size++;
+            if (entry != loaded && (eldestEntry == null || entry.used < eldestEntry.used)) {
+              eldest = slot;
+              eldestEntry = entry;
+            }
+          }
+        }
+        if (size <= maximumSize || eldestEntry == null) {
+          return;
+        }
+        evict(cached, eldest, eldestEntry);
+      }
+    }
+
+    /**
+     * a failing @PreDestroy of an evicted instance does not fail the lookup that evicted it
+     */
+    private void evict(ScopedInstances cached, int slot, Entry entry) {
+      if (cached.remove(slot, entry)) {
+        evictions.increment();
+        try {
+          cached.destroy(slot, entry);
+        } catch (RuntimeException ignored) {
+        }
+      }
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+      return provider.getDependencies();
+    }
+
+    private final class Loader implements ComponentProvider<Entry> {
+
+      private boolean loaded;
+
+      @Override
+      public Entry get(Context context) {
+        loaded = true;
+        misses.increment();
+        return new Entry(provider.get(context), ticker.getAsLong());
+      }
+
+      @Override
+      public void destroy(Entry entry) {
+        provider.destroy(entry.instance);
+      }
+    }
+  }
+}
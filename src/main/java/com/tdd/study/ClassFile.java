@@ -0,0 +1,239 @@
+package com.tdd.study;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * just enough of the class file format to find injection points without loading the class
+ */
+final class ClassFile {
+
+  private static final int ACC_INTERFACE = 0x0200;
+
+  private static final int ACC_ANNOTATION = 0x2000;
+
+  private static final int ACC_ENUM = 0x4000;
+
+  private static final int ACC_SYNTHETIC = 0x1000;
+
+  private final Object[] constants;
+
+  private String name;
+
+  private String superName;
+
+  private int access;
+
+  private boolean nested;
+
+  private final List<AnnotationEntry> annotations = new ArrayList<>();
+
+  private final List<Member> fields = new ArrayList<>();
+
+  private final List<Member> methods = new ArrayList<>();
+
+  record Member(String name, String descriptor, String signature, int access,
+                List<AnnotationEntry> annotations,
+                List<List<AnnotationEntry>> parameterAnnotations) {
+
+    boolean isAnnotatedWith(String descriptor) {
+      return annotations.stream().anyMatch(annotation -> annotation.type().equals(descriptor));
+    }
+
+    String genericType() {
+      return signature == null ? descriptor : signature;
+    }
+  }
+
+  /**
+   * element values are kept raw: boxed constants, String, EnumValue, ClassValue, nested
+   * AnnotationEntry or List of those
+   */
+  record AnnotationEntry(String type, Map<String, Object> values) {
+
+  }
+
+  record EnumValue(String type, String name) {
+
+  }
+
+  record ClassValue(String descriptor) {
+
+  }
+
+  private ClassFile(DataInputStream in) throws IOException {
+    if (in.readInt() != 0xCAFEBABE) {
+      throw new IOException("not a class file");
+    }
+    in.readUnsignedShort();
+    in.readUnsignedShort();
+    constants = readConstants(in);
+    access = in.readUnsignedShort();
+    name = className(in.readUnsignedShort());
+    superName = className(in.readUnsignedShort());
+    in.skipBytes(in.readUnsignedShort() * 2);
+    readMembers(in, fields);
+    readMembers(in, methods);
+    int count = in.readUnsignedShort();
+    for (int i = 0; i < count; i++) {
+      String attribute = utf8(in.readUnsignedShort());
+      int length = in.readInt();
+      switch (attribute) {
+        case "RuntimeVisibleAnnotations" -> annotations.addAll(readAnnotations(in));
+        case "InnerClasses" -> readInnerClasses(in);
+        default -> in.skipBytes(length);
+      }
+    }
+  }
+
+  static ClassFile read(byte[] bytes) throws IOException {
+    return new ClassFile(new DataInputStream(new ByteArrayInputStream(bytes)));
+  }
+
+  String getName() {
+    return name;
+  }
+
+  String getSuperName() {
+    return superName;
+  }
+
+  List<AnnotationEntry> getAnnotations() {
+    return annotations;
+  }
+
+  List<Member> getFields() {
+    return fields;
+  }
+
+  List<Member> getMethods() {
+    return methods;
+  }
+
+  /**
+   * concrete top level or static nested class, the only shape InjectionProvider can instantiate
+   */
+  boolean isInstantiable() {
+    return (access & (ACC_INTERFACE | ACC_ANNOTATION | ACC_ENUM | ACC_SYNTHETIC
+        | Modifier.ABSTRACT)) == 0 && !nested;
+  }
+
+  boolean hasMemberAnnotatedWith(String descriptor) {
+    return fields.stream().anyMatch(field -> field.isAnnotatedWith(descriptor))
+        || methods.stream().anyMatch(method -> method.isAnnotatedWith(descriptor));
+  }
+
+  private Object[] readConstants(DataInputStream in) throws IOException {
+    Object[] constants = new Object[in.readUnsignedShort()];
+    for (int i = 1; i < constants.length; i++) {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+        case 1 -> constants[i] = in.readUTF();
+        case 7 -> constants[i] = in.readUnsignedShort();
+        case 3 -> constants[i] = in.readInt();
+        case 4 -> constants[i] = in.readFloat();
+        case 5 -> constants[i++] = in.readLong();
+        case 6 -> constants[i++] = in.readDouble();
+        case 8, 16, 19, 20 -> in.skipBytes(2);
+        case 9, 10, 11, 12, 17, 18 -> in.skipBytes(4);
+        case 15 -> in.skipBytes(3);
+        default -> throw new IOException("unknown constant tag " + tag);
+      }
+    }
+    return constants;
+  }
+
+  private void readMembers(DataInputStream in, List<Member> members) throws IOException {
+    int count = in.readUnsignedShort();
+    for (int i = 0; i < count; i++) {
+      int access = in.readUnsignedShort();
+      String name = utf8(in.readUnsignedShort());
+      String descriptor = utf8(in.readUnsignedShort());
+      String signature = null;
+      List<AnnotationEntry> annotations = new ArrayList<>();
+      List<List<AnnotationEntry>> parameterAnnotations = new ArrayList<>();
+      int attributes = in.readUnsignedShort();
+      for (int j = 0; j < attributes; j++) {
+        String attribute = utf8(in.readUnsignedShort());
+        int length = in.readInt();
+        switch (attribute) {
+          case "RuntimeVisibleAnnotations" -> annotations.addAll(readAnnotations(in));
+          case "RuntimeVisibleParameterAnnotations" -> {
+            int parameters = in.readUnsignedByte();
+            for (int k = 0; k < parameters; k++) {
+              parameterAnnotations.add(readAnnotations(in));
+            }
+          }
+          case "Signature" -> signature = utf8(in.readUnsignedShort());
+          default -> in.skipBytes(length);
+        }
+      }
+      members.add(new Member(name, descriptor, signature, access, annotations,
+          parameterAnnotations));
+    }
+  }
+
+  private List<AnnotationEntry> readAnnotations(DataInputStream in) throws IOException {
+    List<AnnotationEntry> annotations = new ArrayList<>();
+    int count = in.readUnsignedShort();
+    for (int i = 0; i < count; i++) {
+      annotations.add(readAnnotation(in));
+    }
+    return annotations;
+  }
+
+  private AnnotationEntry readAnnotation(DataInputStream in) throws IOException {
+    String type = utf8(in.readUnsignedShort());
+    Map<String, Object> values = new LinkedHashMap<>();
+    int pairs = in.readUnsignedShort();
+    for (int i = 0; i < pairs; i++) {
+      values.put(utf8(in.readUnsignedShort()), readElementValue(in));
+    }
+    return new AnnotationEntry(type, values);
+  }
+
+  private Object readElementValue(DataInputStream in) throws IOException {
+    int tag = in.readUnsignedByte();
+    return switch (tag) {
+      case 'e' -> new EnumValue(utf8(in.readUnsignedShort()), utf8(in.readUnsignedShort()));
+      case 'c' -> new ClassValue(utf8(in.readUnsignedShort()));
+      case '@' -> readAnnotation(in);
+      case '[' -> {
+        List<Object> values = new ArrayList<>();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+          values.add(readElementValue(in));
+        }
+        yield values;
+      }
+      default -> constants[in.readUnsignedShort()];
+    };
+  }
+
+  private void readInnerClasses(DataInputStream in) throws IOException {
+    int count = in.readUnsignedShort();
+    for (int i = 0; i < count; i++) {
+      String inner = className(in.readUnsignedShort());
+      int outer = in.readUnsignedShort();
+      in.readUnsignedShort();
+      int flags = in.readUnsignedShort();
+      if (name.equals(inner)) {
+        nested = outer == 0 || (flags & Modifier.STATIC) == 0;
+      }
+    }
+  }
+
+  private String className(int index) {
+    return index == 0 ? null : utf8((Integer) constants[index]).replace('/', '.');
+  }
+
+  private String utf8(int index) {
+    return (String) constants[index];
+  }
+}
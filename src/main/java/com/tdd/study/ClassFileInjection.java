@@ -0,0 +1,409 @@
+package com.tdd.study;
+
+import com.tdd.study.ClassFile.AnnotationEntry;
+import com.tdd.study.ClassFile.ClassValue;
+import com.tdd.study.ClassFile.EnumValue;
+import com.tdd.study.ClassFile.Member;
+import jakarta.inject.Qualifier;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * the dependencies InjectionProvider would find by reflection, read from class files instead. Any
+ * shape it does not understand (and every illegal component) is left to InjectionProvider
+ */
+final class ClassFileInjection {
+
+  private static final String INJECT = "Ljakarta/inject/Inject;";
+
+  private static final String ASSISTED = "Lcom/tdd/study/Assisted;";
+
+  private final ClassLoader classLoader;
+
+  private final Map<String, Boolean> qualifiers = new ConcurrentHashMap<>();
+
+  ClassFileInjection(ClassLoader classLoader) {
+    this.classLoader = classLoader;
+  }
+
+  Optional<List<ComponentRef<?>>> getDependencies(ClassFile component) {
+    try {
+      List<ClassFile> hierarchy = hierarchy(component);
+      List<ComponentRef<?>> dependencies = new ArrayList<>(injectConstructor(component));
+      for (ClassFile current : hierarchy) {
+        for (Member field : current.getFields()) {
+          if (field.isAnnotatedWith(INJECT)) {
+            if (Modifier.isFinal(field.access())) {
+              return Optional.empty();
+            }
+            dependencies.add(toComponentRef(field.genericType(), field.annotations()));
+          }
+        }
+      }
+      dependencies.addAll(injectMethods(component, hierarchy));
+      return Optional.of(dependencies);
+    } catch (Unsupported | IOException | ReflectiveOperationException e) {
+      return Optional.empty();
+    }
+  }
+
+  private List<ComponentRef<?>> injectConstructor(ClassFile component)
+      throws ReflectiveOperationException {
+    List<Member> constructors = component.getMethods().stream()
+        .filter(method -> method.name().equals("<init>")).toList();
+    List<Member> injectConstructors = constructors.stream()
+        .filter(constructor -> constructor.isAnnotatedWith(INJECT))
+        .filter(constructor -> Modifier.isPublic(constructor.access())).toList();
+    if (injectConstructors.size() > 1) {
+      throw new Unsupported();
+    }
+    if (injectConstructors.isEmpty()) {
+      if (constructors.stream().noneMatch(constructor -> constructor.descriptor().equals("()V"))) {
+        throw new Unsupported();
+      }
+      return List.of();
+    }
+    return parameters(injectConstructors.get(0));
+  }
+
+  private List<ComponentRef<?>> injectMethods(ClassFile component, List<ClassFile> hierarchy)
+      throws ReflectiveOperationException {
+    List<Member> injectMethods = new ArrayList<>();
+    for (ClassFile current : hierarchy) {
+      List<Member> declared = current.getMethods().stream()
+          .filter(method -> method.isAnnotatedWith(INJECT))
+          .filter(method -> !method.name().equals("<init>"))
+          .filter(method -> injectMethods.stream().noneMatch(overrides(method)))
+          .filter(method -> component.getMethods().stream()
+              .filter(override -> !override.isAnnotatedWith(INJECT))
+              .noneMatch(overrides(method)))
+          .toList();
+      injectMethods.addAll(declared);
+    }
+    Collections.reverse(injectMethods);
+    List<ComponentRef<?>> dependencies = new ArrayList<>();
+    for (Member method : injectMethods) {
+      if (method.genericType().startsWith("<")) {
+        throw new Unsupported();
+      }
+      dependencies.addAll(parameters(method));
+    }
+    return dependencies;
+  }
+
+  private static Predicate<Member> overrides(Member method) {
+    return other -> other.name().equals(method.name()) && parameterDescriptor(other).equals(
+        parameterDescriptor(method));
+  }
+
+  private static String parameterDescriptor(Member method) {
+    return method.descriptor().substring(0, method.descriptor().indexOf(')') + 1);
+  }
+
+  private List<ComponentRef<?>> parameters(Member method) throws ReflectiveOperationException {
+    Signature signature = new Signature(method.genericType());
+    List<Type> types = signature.parameters();
+    if (!method.parameterAnnotations().isEmpty()
+        && method.parameterAnnotations().size() != types.size()) {
+      throw new Unsupported();
+    }
+    if (method.parameterAnnotations().stream().flatMap(List::stream)
+        .anyMatch(annotation -> annotation.type().equals(ASSISTED))) {
+      throw new Unsupported();
+    }
+    List<ComponentRef<?>> refs = new ArrayList<>();
+    for (int i = 0; i < types.size(); i++) {
+      refs.add(ComponentRef.of(types.get(i), qualifier(method.parameterAnnotations().isEmpty()
+          ? List.of() : method.parameterAnnotations().get(i))));
+    }
+    return refs;
+  }
+
+  private ComponentRef<?> toComponentRef(String genericType, List<AnnotationEntry> annotations)
+      throws ReflectiveOperationException {
+    return ComponentRef.of(new Signature(genericType).type(), qualifier(annotations));
+  }
+
+  private Annotation qualifier(List<AnnotationEntry> annotations)
+      throws ReflectiveOperationException {
+    List<AnnotationEntry> found = new ArrayList<>();
+    for (AnnotationEntry annotation : annotations) {
+      if (isQualifier(annotation.type())) {
+        found.add(annotation);
+      }
+    }
+    if (found.size() > 1) {
+      throw new Unsupported();
+    }
+    return found.isEmpty() ? null : annotation(found.get(0));
+  }
+
+  private boolean isQualifier(String descriptor) {
+    return qualifiers.computeIfAbsent(descriptor, d -> {
+      try {
+        return load(d).isAnnotationPresent(Qualifier.class);
+      } catch (ClassNotFoundException e) {
+        return false;
+      }
+    });
+  }
+
+  private List<ClassFile> hierarchy(ClassFile component) throws IOException {
+    List<ClassFile> hierarchy = new ArrayList<>();
+    ClassFile current = component;
+    while (current != null) {
+      hierarchy.add(current);
+      current = Objects.equals(current.getSuperName(), Object.class.getName()) ? null
+          : read(current.getSuperName());
+    }
+    return hierarchy;
+  }
+
+  private ClassFile read(String className) throws IOException {
+    try (InputStream in = classLoader.getResourceAsStream(
+        className.replace('.', '/') + ".class")) {
+      if (in == null) {
+        throw new Unsupported();
+      }
+      return ClassFile.read(in.readAllBytes());
+    }
+  }
+
+  private Class<?> load(String descriptor) throws ClassNotFoundException {
+    return switch (descriptor.charAt(0)) {
+      case 'L' -> Class.forName(descriptor.substring(1, descriptor.length() - 1).replace('/', '.'),
+          false, classLoader);
+      case '[' -> Class.forName(descriptor.replace('/', '.'), false, classLoader);
+      case 'Z' -> boolean.class;
+      case 'B' -> byte.class;
+      case 'C' -> char.class;
+      case 'S' -> short.class;
+      case 'I' -> int.class;
+      case 'J' -> long.class;
+      case 'F' -> float.class;
+      case 'D' -> double.class;
+      default -> throw new Unsupported();
+    };
+  }
+
+  private Annotation annotation(AnnotationEntry entry) throws ReflectiveOperationException {
+    Class<? extends Annotation> type = load(entry.type()).asSubclass(Annotation.class);
+    Map<String, Object> values = new LinkedHashMap<>();
+    for (Method member : type.getDeclaredMethods()) {
+      Object value = entry.values().containsKey(member.getName())
+          ? value(entry.values().get(member.getName()), member.getReturnType())
+          : member.getDefaultValue();
+      if (value == null) {
+        throw new Unsupported();
+      }
+      values.put(member.getName(), value);
+    }
+    return (Annotation) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+        new AnnotationLiteral(type, values));
+  }
+
+  private Object value(Object raw, Class<?> type) throws ReflectiveOperationException {
+    if (raw instanceof EnumValue value) {
+      return Enum.valueOf(load(value.type()).asSubclass(Enum.class), value.name());
+    }
+    if (raw instanceof ClassValue value) {
+      return value.descriptor().equals("V") ? void.class : load(value.descriptor());
+    }
+    if (raw instanceof AnnotationEntry value) {
+      return annotation(value);
+    }
+    if (raw instanceof List<?> values) {
+      Object array = Array.newInstance(type.getComponentType(), values.size());
+      for (int i = 0; i < values.size(); i++) {
+        Array.set(array, i, value(values.get(i), type.getComponentType()));
+      }
+      return array;
+    }
+    if (raw instanceof Integer value) {
+      if (type == boolean.class) {
+        return value != 0;
+      }
+      if (type == byte.class) {
+        return value.byteValue();
+      }
+      if (type == char.class) {
+        return (char) value.intValue();
+      }
+      if (type == short.class) {
+        return value.shortValue();
+      }
+    }
+    return raw;
+  }
+
+  /**
+   * generic type signatures (or plain descriptors) of fields and method parameters
+   */
+  private class Signature {
+
+    private final String signature;
+
+    private int position;
+
+    Signature(String signature) {
+      this.signature = signature;
+    }
+
+    List<Type> parameters() throws ClassNotFoundException {
+      if (signature.charAt(position) != '(') {
+        throw new Unsupported();
+      }
+      position++;
+      List<Type> types = new ArrayList<>();
+      while (signature.charAt(position) != ')') {
+        types.add(type());
+      }
+      return types;
+    }
+
+    Type type() throws ClassNotFoundException {
+      char tag = signature.charAt(position);
+      if (tag == 'L') {
+        int start = position;
+        while (";<".indexOf(signature.charAt(position)) < 0) {
+          position++;
+        }
+        Class<?> raw = load(signature.substring(start, position) + ";");
+        if (signature.charAt(position) == ';') {
+          position++;
+          return raw;
+        }
+        position++;
+        List<Type> arguments = new ArrayList<>();
+        while (signature.charAt(position) != '>') {
+          arguments.add(type());
+        }
+        position++;
+        if (signature.charAt(position++) != ';' || arguments.size() != 1
+            || !(arguments.get(0) instanceof Class<?>)) {
+          throw new Unsupported();
+        }
+        return new ContainerType(raw, arguments.get(0));
+      }
+      if (tag == '[') {
+        int start = position;
+        while (signature.charAt(position) == '[') {
+          position++;
+        }
+        if (signature.charAt(position) == 'L') {
+          position = signature.indexOf(';', position);
+          if (signature.lastIndexOf('<', position) > start) {
+            throw new Unsupported();
+          }
+        }
+        position++;
+        return load(signature.substring(start, position));
+      }
+      if ("ZBCSIJFD".indexOf(tag) >= 0) {
+        position++;
+        return load(String.valueOf(tag));
+      }
+      throw new Unsupported();
+    }
+  }
+
+  /**
+   * a shape left to InjectionProvider, only caught by getDependencies, so it carries no stack
+   * trace and cannot be mistaken for a failure of the JDK
+   */
+  private static final class Unsupported extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    Unsupported() {
+      super(null, null, false, false);
+    }
+  }
+
+  private record ContainerType(Type rawType, Type argument) implements ParameterizedType {
+
+    @Override
+    public Type[] getActualTypeArguments() {
+      return new Type[]{argument};
+    }
+
+    @Override
+    public Type getRawType() {
+      return rawType;
+    }
+
+    @Override
+    public Type getOwnerType() {
+      return null;
+    }
+  }
+
+  private record AnnotationLiteral(Class<? extends Annotation> type, Map<String, Object> values)
+      implements InvocationHandler {
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      return switch (method.getName()) {
+        case "annotationType" -> type;
+        case "equals" -> equalTo(args[0]);
+        case "hashCode" -> hash();
+        case "toString" -> "@" + type.getName() + values.entrySet().stream()
+            .map(entry -> entry.getKey() + "=" + string(entry.getValue()))
+            .collect(Collectors.joining(", ", "(", ")"));
+        default -> values.get(method.getName());
+      };
+    }
+
+    private boolean equalTo(Object other) throws ReflectiveOperationException {
+      if (!type.isInstance(other)) {
+        return false;
+      }
+      for (Method member : type.getDeclaredMethods()) {
+        if (!Objects.deepEquals(values.get(member.getName()), member.invoke(other))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private int hash() {
+      return values.entrySet().stream()
+          .mapToInt(entry -> (127 * entry.getKey().hashCode()) ^ valueHash(entry.getValue()))
+          .sum();
+    }
+
+    private static int valueHash(Object value) {
+      if (value.getClass().isArray()) {
+        return Arrays.deepHashCode(new Object[]{value}) - 31;
+      }
+      return value.hashCode();
+    }
+
+    private static String string(Object value) {
+      if (value.getClass().isArray()) {
+        String array = Arrays.deepToString(new Object[]{value});
+        return "{" + array.substring(2, array.length() - 2) + "}";
+      }
+      return value instanceof String string ? "\"" + string + "\"" : String.valueOf(value);
+    }
+  }
+}
@@ -0,0 +1,738 @@
+package com.tdd.study;
+
+import static java.util.Arrays.stream;
+
+import com.tdd.study.ResolutionTracer.Trace;
+import com.tdd.study.exception.CyclicDependenciesFoundException;
+import com.tdd.study.exception.DependencyNotFoundException;
+import jakarta.inject.Provider;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+final class ComponentContext implements Context, SingletonSlots {
+
+  private static final VarHandle INSTANCES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  private final Bindings bindings;
+
+  private final ComponentProvider<?>[] providers;
+
+  private final Object[] instances;
+
+  private final AtomicReferenceArray<Object> singletons;
+
+  private final Component[] singletonComponents;
+
+  private final Map<Thread, Initialization> waiting = new ConcurrentHashMap<>();
+
+  private final SingletonProvider<?>[] singletonProviders;
+
+  private final Map<Integer, Map<List<Object>, Initialization>> keyed = new ConcurrentHashMap<>();
+
+  private final ResolutionTracer tracer;
+
+  private final Deque<Integer> created = new ConcurrentLinkedDeque<>();
+
+  private final Map<Class<?>, ScopeProvider<?>> scopes;
+
+  private final Map<Class<?>, Integer> scopedSlots;
+
+  private final Map<Class<?>, ScopedInstances> scoped = new ConcurrentHashMap<>();
+
+  private final boolean[] stable;
+
+  private final Object[] arguments;
+
+  private final Consumer<Component> validator;
+
+  private final Component[] components;
+
+  private final boolean[] validated;
+
+  private final ThreadLocal<UnderConstruction> underConstruction = ThreadLocal.withInitial(
+      UnderConstruction::new);
+
+  ComponentContext(Bindings bindings) {
+    this.bindings = bindings;
+    this.providers = bindings.providers;
+    this.components = bindings.components;
+    this.instances = bindings.constants.clone();
+    this.singletons = new AtomicReferenceArray<>(bindings.singletonProviders.length);
+    this.singletonComponents = bindings.singletonComponents;
+    this.singletonProviders = bindings.singletonProviders;
+    this.scopes = bindings.scopes;
+    this.scopedSlots = bindings.scopedSlots;
+    this.validator = bindings.validator;
+    this.validated = bindings.validated;
+    this.tracer = bindings.tracer;
+    this.stable = bindings.stable;
+    this.arguments = new Object[providers.length];
+  }
+
+  @Override
+  public <T> Optional<T> get(ComponentRef<T> ref) {
+    int slot = slotOf(ref);
+    if (!isBound(slot, ref)) {
+      return Optional.empty();
+    }
+    if (ref.isContainer()) {
+      if (ref.getContainerType() == Factory.class) {
+        return Optional.of((T) factory(slot));
+      }
+      if (ref.getContainerType() != Provider.class) {
+        return Optional.empty();
+      }
+      return Optional.of((T) provider(slot));
+    }
+    if (tracer != null && tracer.sample()) {
+      tracer.start();
+      try {
+        return Optional.ofNullable((T) resolve(slot));
+      } finally {
+        tracer.stop();
+      }
+    }
+    return Optional.ofNullable((T) resolve(slot));
+  }
+
+  /**
+   * the instance if the component is a constant or a singleton already created, nothing is
+   * constructed and the calling thread never waits
+   */
+  <T> Optional<T> constructed(ComponentRef<T> ref) {
+    int slot = slotOf(ref);
+    if (!isBound(slot, ref)) {
+      return Optional.empty();
+    }
+    Object instance = INSTANCES.getAcquire(instances, slot);
+    if (instance == null && providers[slot] instanceof SingletonProvider<?> singleton) {
+      instance = singletons.get(singleton.slot());
+    }
+    return instance instanceof Initialization ? Optional.empty()
+        : Optional.ofNullable((T) instance);
+  }
+
+  private int slotOf(ComponentRef<?> ref) {
+    return bindings.slotOf(ref);
+  }
+
+  /**
+   * components bound with a factory can only be retrieved as Factory, and Factory only for them
+   */
+  private boolean isBound(int slot, ComponentRef<?> ref) {
+    return slot >= 0 && providers[slot] != null
+        && (providers[slot] instanceof AssistedProvider<?>) == (ref.getContainerType()
+        == Factory.class);
+  }
+
+  Provider<?> provider(int slot) {
+    return () -> resolve(slot);
+  }
+
+  private Factory<?> factory(int slot) {
+    AssistedProvider<?> provider = (AssistedProvider<?>) providers[slot];
+    if (!provider.keyed()) {
+      return arguments -> provider.get(this, arguments);
+    }
+    Map<List<Object>, Initialization> instances = keyed.computeIfAbsent(slot,
+        key -> new ConcurrentHashMap<>());
+    return arguments -> keyed(slot, provider, instances, arguments);
+  }
+
+  /**
+   * the instance is constructed outside the map, so constructing it may create other keys of the
+   * same factory, other threads asking for the key wait for the first one
+   */
+  private Object keyed(int slot, AssistedProvider<?> provider,
+      Map<List<Object>, Initialization> instances, Object[] arguments) {
+    List<Object> key = Arrays.asList(arguments.clone());
+    Initialization initialization = instances.get(key);
+    if (initialization == null) {
+      Initialization claim = new Initialization(slot);
+      initialization = instances.putIfAbsent(key, claim);
+      if (initialization == null) {
+        try {
+          Object instance = provider.get(this, arguments);
+          claim.complete(instance);
+          return instance;
+        } catch (RuntimeException | Error e) {
+          instances.remove(key, claim);
+          claim.completeExceptionally(e);
+          throw e;
+        }
+      }
+    }
+    if (!initialization.isDone() && initialization.owner == Thread.currentThread()) {
+      throw new CyclicDependenciesFoundException(List.of(components[slot]));
+    }
+    return join(initialization);
+  }
+
+  Object resolve(int slot) {
+    if (tracer != null) {
+      Trace trace = tracer.current();
+      if (trace != null) {
+        return traced(slot, trace);
+      }
+    }
+    return resolveUntraced(slot);
+  }
+
+  private Object traced(int slot, Trace trace) {
+    ResolutionEvent event = new ResolutionEvent();
+    boolean hit = instances[slot] != null
+        || providers[slot] instanceof SingletonProvider<?> singleton
+        && isCreated(singletons.get(singleton.slot()));
+    long parent = trace.enter();
+    long node = trace.node();
+    event.begin();
+    try {
+      return resolveUntraced(slot);
+    } finally {
+      event.end();
+      trace.exit(parent);
+      if (event.shouldCommit()) {
+        event.trace = trace.id;
+        event.node = node;
+        event.parent = parent;
+        event.component = components[slot].type();
+        event.qualifier = Objects.toString(components[slot].qualifier(), null);
+        event.scope = scopeOf(providers[slot]);
+        event.hit = hit;
+        event.commit();
+      }
+    }
+  }
+
+  private static boolean isCreated(Object singleton) {
+    return singleton != null && !(singleton instanceof Initialization);
+  }
+
+  private static String scopeOf(ComponentProvider<?> provider) {
+    if (provider instanceof InstanceProvider<?>) {
+      return "instance";
+    }
+    if (provider instanceof SingletonProvider<?>) {
+      return "singleton";
+    }
+    if (provider instanceof InjectionProvider<?>
+        || provider instanceof DeferredInjectionProvider<?>) {
+      return "prototype";
+    }
+    return provider.getClass().getSimpleName();
+  }
+
+  private Object resolveUntraced(int slot) {
+    validate(slot);
+    Object instance = INSTANCES.getAcquire(instances, slot);
+    if (instance != null) {
+      return instance;
+    }
+    UnderConstruction constructing = underConstruction.get();
+    constructing.enter(slot, components[slot]);
+    try {
+      return construct(slot);
+    } finally {
+      constructing.exit(slot);
+    }
+  }
+
+  private void validate(int slot) {
+    if (validated != null && !validated[slot]) {
+      validator.accept(components[slot]);
+      validated[slot] = true;
+    }
+  }
+
+  private Object construct(int slot) {
+    ComponentProvider<?> provider = providers[slot];
+    if (provider instanceof SingletonProvider<?> singleton) {
+      Object instance = singleton(singleton.slot(), singleton.provider());
+      INSTANCES.setRelease(instances, slot, instance);
+      return instance;
+    }
+    if (stable[slot] && (tracer == null || tracer.current() == null)) {
+      return prototype(slot, (InjectionProvider<?>) provider);
+    }
+    return resolve(provider);
+  }
+
+  /**
+   * a prototype only depending on constants and singletons gets the same dependencies every time,
+   * they are resolved once and each new instance is a single call with the cached vector
+   */
+  private Object prototype(int slot, InjectionProvider<?> provider) {
+    Object[] dependencies = (Object[]) INSTANCES.getAcquire(arguments, slot);
+    if (dependencies == null) {
+      dependencies = provider.toDependencies(this);
+      INSTANCES.setRelease(arguments, slot, dependencies);
+    }
+    return provider.get(dependencies);
+  }
+
+  Object resolve(ComponentProvider<?> provider) {
+    if (provider instanceof InstanceProvider<?> constant) {
+      return constant.instance();
+    }
+    if (provider instanceof SingletonProvider<?> singleton) {
+      return singleton(singleton.slot(), singleton.provider());
+    }
+    if (provider instanceof InjectionProvider<?> prototype) {
+      return prototype.get(this);
+    }
+    return provider.get(this);
+  }
+
+  @Override
+  public Object singleton(int slot, ComponentProvider<?> provider) {
+    Object instance = singletons.get(slot);
+    if (instance != null && !(instance instanceof Initialization)) {
+      return instance;
+    }
+    return initialize(slot, provider);
+  }
+
+  /**
+   * each singleton is initialized under its own claim, so unrelated singletons are created in
+   * parallel and a thread only waits for the singletons it depends on. The sync and async paths
+   * claim the same slot, so a singleton is only ever constructed once
+   */
+  private Object initialize(int slot, ComponentProvider<?> provider) {
+    while (true) {
+      Object instance = singletons.get(slot);
+      if (instance instanceof Initialization initialization) {
+        instance = await(initialization);
+      }
+      if (instance != null) {
+        return instance;
+      }
+      Initialization initialization = new Initialization(slot);
+      if (singletons.compareAndSet(slot, null, initialization)) {
+        return create(slot, provider, initialization);
+      }
+    }
+  }
+
+  private Object create(int slot, ComponentProvider<?> provider, Initialization initialization) {
+    SingletonCreationEvent event = new SingletonCreationEvent();
+    event.begin();
+    Object instance;
+    try {
+      instance = resolve(provider);
+    } catch (RuntimeException | Error e) {
+      singletons.set(slot, null);
+      initialization.completeExceptionally(e);
+      throw e;
+    }
+    singletons.set(slot, instance);
+    created(slot, instance, event);
+    initialization.complete(instance);
+    return instance;
+  }
+
+  /**
+   * bookkeeping of a singleton published to its slot, shared by the sync and async paths
+   */
+  private void created(int slot, Object instance, SingletonCreationEvent event) {
+    created.push(slot);
+    event.end();
+    if (event.shouldCommit()) {
+      event.type = instance.getClass();
+      event.commit();
+    }
+  }
+
+  /**
+   * the static graph is acyclic once validated, but a Provider called from a constructor can make
+   * two threads wait for each other's singletons, that shows up as a cycle in who waits for whom
+   */
+  private Object await(Initialization initialization) {
+    Thread current = Thread.currentThread();
+    waiting.put(current, initialization);
+    try {
+      List<Component> cycle = new ArrayList<>();
+      Initialization next = initialization;
+      while (next != null && cycle.size() <= waiting.size()) {
+        cycle.add(singletonComponents[next.slot]);
+        Thread owner = next.owner;
+        if (owner == current) {
+          throw new CyclicDependenciesFoundException(cycle);
+        }
+        next = owner == null ? null : waiting.get(owner);
+      }
+      return join(initialization);
+    } finally {
+      waiting.remove(current);
+    }
+  }
+
+  private static Object join(CompletableFuture<Object> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException failure) {
+        throw failure;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw e;
+    }
+  }
+
+
+  ScopedInstances instances(Class<?> scope) {
+    return scoped.computeIfAbsent(scope,
+        key -> new ScopedInstances(this, scopedSlots.getOrDefault(key, 0)));
+  }
+
+  @Override
+  public <T> CompletableFuture<T> getAsync(ComponentRef<T> ref, Executor executor) {
+    int slot = slotOf(ref);
+    if (!isBound(slot, ref)) {
+      return CompletableFuture.failedFuture(new DependencyNotFoundException(ref.component()));
+    }
+    if (ref.isContainer()) {
+      return Context.super.getAsync(ref, executor);
+    }
+    try {
+      return (CompletableFuture<T>) resolveAsync(slot, executor);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * builds the future graph on the calling thread, so cycles are still caught by the construction
+   * guard, the constructions themselves run on the executor once their dependencies complete
+   */
+  private CompletableFuture<Object> resolveAsync(int slot, Executor executor) {
+    validate(slot);
+    Object instance = INSTANCES.getAcquire(instances, slot);
+    if (instance != null) {
+      return CompletableFuture.completedFuture(instance);
+    }
+    UnderConstruction constructing = underConstruction.get();
+    constructing.enter(slot, components[slot]);
+    try {
+      ComponentProvider<?> provider = providers[slot];
+      if (provider instanceof SingletonProvider<?> singleton) {
+        return singletonAsync(components[slot], singleton.slot(), singleton.provider(),
+            executor).thenApply(constructed -> {
+              INSTANCES.setRelease(instances, slot, constructed);
+              return constructed;
+            });
+      }
+      return constructAsync(components[slot], provider, executor, null);
+    } finally {
+      constructing.exit(slot);
+    }
+  }
+
+  private CompletableFuture<Object> singletonAsync(Component component, int slot,
+      ComponentProvider<?> provider, Executor executor) {
+    Initialization future = new Initialization(slot, null);
+    Object instance = singletons.compareAndExchange(slot, null, future);
+    if (instance instanceof Initialization initialization) {
+      return initialization.copy();
+    }
+    if (instance != null) {
+      return CompletableFuture.completedFuture(instance);
+    }
+    SingletonCreationEvent event = new SingletonCreationEvent();
+    event.begin();
+    constructAsync(component, provider, executor, future).whenComplete((constructed, failure) -> {
+      if (failure != null) {
+        singletons.compareAndSet(slot, future, null);
+        future.completeExceptionally(failure);
+        return;
+      }
+      singletons.set(slot, constructed);
+      created(slot, constructed, event);
+      future.complete(constructed);
+    });
+    return future;
+  }
+
+  /**
+   * the thread running the construction of a singleton owns its initialization meanwhile, so
+   * threads waiting for it take part in cycle detection
+   */
+  private CompletableFuture<Object> constructAsync(Component component,
+      ComponentProvider<?> provider, Executor executor, Initialization initialization) {
+    InjectionProvider<?> injection = provider instanceof DeferredInjectionProvider<?> deferred
+        ? deferred.provider() : provider instanceof InjectionProvider<?> prototype ? prototype
+        : null;
+    if (injection == null) {
+      return CompletableFuture.supplyAsync(() -> owned(initialization, () -> resolve(provider)),
+          executor);
+    }
+    CompletableFuture<?>[] dependencies = injection.getDependencies().stream()
+        .map(ref -> dependencyAsync(component, ref, executor)).toArray(CompletableFuture[]::new);
+    return CompletableFuture.allOf(dependencies).thenApplyAsync(ignored -> owned(initialization,
+        () -> injection.get(stream(dependencies).map(CompletableFuture::join).toArray())),
+        executor);
+  }
+
+  private static Object owned(Initialization initialization, Supplier<Object> construction) {
+    if (initialization == null) {
+      return construction.get();
+    }
+    initialization.owner = Thread.currentThread();
+    try {
+      return construction.get();
+    } finally {
+      initialization.owner = null;
+    }
+  }
+
+  private CompletableFuture<?> dependencyAsync(Component component, ComponentRef<?> ref,
+      Executor executor) {
+    int slot = slotOf(ref);
+    if (!isBound(slot, ref)) {
+      return CompletableFuture.failedFuture(
+          new DependencyNotFoundException(component, ref.component()));
+    }
+    if (ref.isContainer()) {
+      return CompletableFuture.completedFuture(get(ref).get());
+    }
+    return resolveAsync(slot, executor);
+  }
+
+  /**
+   * instances of custom scopes and keyed factories may depend on singletons, so they are destroyed
+   * first
+   */
+  @Override
+  public void close() {
+    List<RuntimeException> failures = closeScopes();
+    for (int slot : destructionOrder()) {
+      try {
+        destroy(slot);
+      } catch (RuntimeException e) {
+        failures.add(e);
+      }
+    }
+    forgetSingletons();
+    rethrow(failures);
+  }
+
+  private List<RuntimeException> closeScopes() {
+    List<RuntimeException> failures = new ArrayList<>();
+    keyed.forEach((slot, instances) -> {
+      ComponentProvider<Object> provider = (ComponentProvider<Object>) providers[slot];
+      for (Initialization instance : instances.values()) {
+        if (instance.isDone() && !instance.isCompletedExceptionally()) {
+          try {
+            provider.destroy(instance.join());
+          } catch (RuntimeException e) {
+            failures.add(e);
+          }
+        }
+      }
+    });
+    keyed.clear();
+    scoped.values().forEach(instances -> failures.addAll(instances.destroy()));
+    for (ScopeProvider<?> scope : scopes.values()) {
+      try {
+        scope.close(this);
+      } catch (RuntimeException e) {
+        failures.add(e);
+      }
+    }
+    return failures;
+  }
+
+  @Override
+  public void close(Executor executor) {
+    Queue<RuntimeException> failures = new ConcurrentLinkedQueue<>(closeScopes());
+    Map<Integer, List<CompletableFuture<Void>>> dependents = new HashMap<>();
+    List<CompletableFuture<Void>> destroyed = new ArrayList<>();
+    Set<Integer> processed = new HashSet<>();
+    for (int singleton : destructionOrder()) {
+      CompletableFuture<Void> destroying = CompletableFuture.allOf(
+              dependents.getOrDefault(singleton, List.of()).toArray(CompletableFuture[]::new))
+          .thenRunAsync(() -> {
+            try {
+              destroy(singleton);
+            } catch (RuntimeException e) {
+              failures.add(e);
+            }
+          }, executor);
+      destroyed.add(destroying);
+      dependents.remove(singleton);
+      processed.add(singleton);
+      for (int dependency : singletonDependencies(singleton)) {
+        if (!processed.contains(dependency)) {
+          dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(destroying);
+        }
+      }
+    }
+    CompletableFuture.allOf(destroyed.toArray(CompletableFuture[]::new)).join();
+    forgetSingletons();
+    rethrow(failures);
+  }
+
+  /**
+   * singletons resolved after close are created again instead of served destroyed, and so are
+   * the cached dependency vectors holding them
+   */
+  private void forgetSingletons() {
+    for (int slot = 0; slot < providers.length; slot++) {
+      if (providers[slot] instanceof SingletonProvider<?>) {
+        INSTANCES.setRelease(instances, slot, null);
+      }
+      INSTANCES.setRelease(arguments, slot, null);
+    }
+  }
+
+  /**
+   * a slot being initialized again meanwhile is left to its initializer
+   */
+  private void destroy(int slot) {
+    Object instance = singletons.get(slot);
+    if (isCreated(instance) && singletons.compareAndSet(slot, instance, null)) {
+      ((SingletonProvider<Object>) singletonProviders[slot]).destroy(instance);
+    }
+  }
+
+  /**
+   * the created singletons, dependents before their dependencies, including dependencies only
+   * obtained later through a Provider. Singletons without an order between them, or on a cycle
+   * through Providers, are taken in reverse creation order
+   */
+  private List<Integer> destructionOrder() {
+    Set<Integer> created = new LinkedHashSet<>();
+    Integer slot;
+    while ((slot = this.created.poll()) != null) {
+      created.add(slot);
+    }
+    Map<Integer, Set<Integer>> dependencies = new HashMap<>();
+    Map<Integer, Integer> dependents = new HashMap<>();
+    for (int singleton : created) {
+      Set<Integer> direct = singletonDependencies(singleton);
+      direct.retainAll(created);
+      direct.remove(singleton);
+      dependencies.put(singleton, direct);
+      direct.forEach(dependency -> dependents.merge(dependency, 1, Integer::sum));
+    }
+    Deque<Integer> ready = new ArrayDeque<>();
+    created.stream().filter(singleton -> !dependents.containsKey(singleton))
+        .forEach(ready::add);
+    Iterator<Integer> remaining = created.iterator();
+    Set<Integer> ordered = new LinkedHashSet<>();
+    while (ordered.size() < created.size()) {
+      int singleton = ready.isEmpty() ? remaining.next() : ready.poll();
+      if (!ordered.add(singleton)) {
+        continue;
+      }
+      for (int dependency : dependencies.get(singleton)) {
+        if (dependents.merge(dependency, -1, Integer::sum) == 0) {
+          ready.add(dependency);
+        }
+      }
+    }
+    return new ArrayList<>(ordered);
+  }
+
+  private Set<Integer> singletonDependencies(int slot) {
+    Set<Integer> dependencies = new HashSet<>();
+    collectSingletons(singletonProviders[slot].getDependencies(), dependencies, new HashSet<>());
+    return dependencies;
+  }
+
+  private void collectSingletons(List<ComponentRef<?>> refs, Set<Integer> dependencies,
+      Set<Integer> visited) {
+    for (ComponentRef<?> ref : refs) {
+      int slot = slotOf(ref);
+      if (slot < 0 || providers[slot] == null || !visited.add(slot)) {
+        continue;
+      }
+      if (providers[slot] instanceof SingletonProvider<?> singleton) {
+        dependencies.add(singleton.slot());
+      } else {
+        collectSingletons(providers[slot].getDependencies(), dependencies, visited);
+      }
+    }
+  }
+
+  private static void rethrow(Collection<RuntimeException> failures) {
+    Iterator<RuntimeException> iterator = failures.iterator();
+    if (!iterator.hasNext()) {
+      return;
+    }
+    RuntimeException failure = iterator.next();
+    iterator.forEachRemaining(failure::addSuppressed);
+    throw failure;
+  }
+
+  /**
+   * owner is the thread constructing the instance, none while an async construction waits for
+   * its dependencies
+   */
+  private static final class Initialization extends CompletableFuture<Object> {
+
+    private final int slot;
+
+    private volatile Thread owner;
+
+    Initialization(int slot) {
+      this(slot, Thread.currentThread());
+    }
+
+    Initialization(int slot, Thread owner) {
+      this.slot = slot;
+      this.owner = owner;
+    }
+  }
+
+  /**
+   * components the current thread is constructing, entering one twice means the dependencies are
+   * cyclic at runtime, e.g. through a Provider called from a constructor
+   */
+  private static final class UnderConstruction {
+
+    private final BitSet slots = new BitSet();
+
+    private final List<Component> path = new ArrayList<>();
+
+    void enter(int slot, Component component) {
+      if (slots.get(slot)) {
+        throw new CyclicDependenciesFoundException(
+            path.subList(path.indexOf(component), path.size()));
+      }
+      slots.set(slot);
+      path.add(component);
+    }
+
+    void exit(int slot) {
+      slots.clear(slot);
+      path.remove(path.size() - 1);
+    }
+  }
+}
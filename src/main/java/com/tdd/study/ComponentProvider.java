@@ -8,6 +8,9 @@ interface ComponentProvider<T> {
 
   T get(Context context);
 
+  default void destroy(T instance) {
+  }
+
   default List<ComponentRef<?>> getDependencies() {
     return of();
   };
@@ -11,6 +11,12 @@ public class ComponentRef<T> {
 
   private Type containerType;
 
+  private int hash;
+
+  private int slot = -1;
+
+  private QualifierId qualifierId;
+
   public static <T> ComponentRef<T> of(Class<T> componentType) {
     return new ComponentRef(componentType);
   }
@@ -49,6 +55,50 @@ public class ComponentRef<T> {
     } else {
       this.component = new Component((Class<?>) type, qualifier);
     }
+    this.hash = Objects.hash(component, containerType);
+  }
+
+  private ComponentRef(ComponentRef<T> ref, int slot) {
+    this.component = ref.component;
+    this.containerType = ref.containerType;
+    this.hash = ref.hash;
+    this.slot = slot;
+    this.qualifierId = ref.qualifierId;
+  }
+
+  /**
+   * the canonical copy of this ref in a config, which knows the slot of its component
+   */
+  ComponentRef<T> linked(int slot) {
+    return new ComponentRef<>(this, slot);
+  }
+
+  /**
+   * @return the slot of the component, or -1 if this ref is not canonical
+   */
+  int slot() {
+    return slot;
+  }
+
+  /**
+   * the id the given config gives the qualifier, worked out once per ref and config
+   *
+   * @return the id, or -1 if no component was bound with the qualifier
+   */
+  int qualifierId(QualifierIds ids) {
+    QualifierId cached = qualifierId;
+    if (cached != null && cached.ids() == ids) {
+      return cached.id();
+    }
+    int id = ids.find(component.qualifier());
+    if (id >= 0) {
+      qualifierId = new QualifierId(ids, id);
+    }
+    return id;
+  }
+
+  private record QualifierId(QualifierIds ids, int id) {
+
   }
 
   public Component component() {
@@ -76,13 +126,13 @@ public class ComponentRef<T> {
       return false;
     }
     ComponentRef<?> that = (ComponentRef<?>) o;
-    return component.equals(that.component) && Objects.equals(containerType,
-        that.containerType);
+    return hash == that.hash && component.equals(that.component) && Objects.equals(
+        containerType, that.containerType);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(component, containerType);
+    return hash;
   }
 
 }
@@ -0,0 +1,135 @@
+package com.tdd.study;
+
+import static java.util.Arrays.stream;
+
+import jakarta.inject.Qualifier;
+import jakarta.inject.Scope;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * find components under a package by reading class files, only candidates get loaded
+ */
+class ComponentScanner {
+
+  private static final String INJECT = "Ljakarta/inject/Inject;";
+
+  private final ClassLoader classLoader;
+
+  private final Map<String, Boolean> componentAnnotations = new ConcurrentHashMap<>();
+
+  ComponentScanner(ClassLoader classLoader) {
+    this.classLoader = classLoader;
+  }
+
+  record Candidate(Class<?> type, ClassFile classFile) {
+
+  }
+
+  List<Candidate> scan(String packageName) {
+    String directory = packageName.replace('.', '/');
+    try {
+      return Collections.list(classLoader.getResources(directory)).stream()
+          .flatMap(url -> classFiles(url, directory)).toList().parallelStream()
+          .map(this::read)
+          .filter(this::isComponent)
+          .map(classFile -> new Candidate(load(classFile.getName()), classFile)).toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  boolean isComponent(ClassFile classFile) {
+    return classFile.isInstantiable() && (classFile.hasMemberAnnotatedWith(INJECT)
+        || classFile.getAnnotations().stream().map(ClassFile.AnnotationEntry::type)
+        .anyMatch(this::isComponentAnnotation));
+  }
+
+  /**
+   * annotations missing from the classpath are skipped, they cannot make a class a component
+   */
+  private boolean isComponentAnnotation(String descriptor) {
+    return componentAnnotations.computeIfAbsent(descriptor, d -> {
+      try {
+        Class<?> annotation = Class.forName(d.substring(1, d.length() - 1).replace('/', '.'),
+            false, classLoader);
+        return stream(annotation.getAnnotations()).anyMatch(
+            meta -> meta.annotationType() == Scope.class
+                || meta.annotationType() == Qualifier.class);
+      } catch (ClassNotFoundException | LinkageError | TypeNotPresentException e) {
+        return false;
+      }
+    });
+  }
+
+  private Stream<byte[]> classFiles(URL url, String directory) {
+    try {
+      return switch (url.getProtocol()) {
+        case "file" -> classFiles(Path.of(url.toURI()));
+        case "jar" -> jarClassFiles(url.toURI(), directory);
+        default -> throw new IllegalArgumentException("unsupported location " + url);
+      };
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * class files are read before the jar is closed, a jar already opened by someone else is left
+   * open
+   */
+  private static Stream<byte[]> jarClassFiles(URI uri, String directory) throws IOException {
+    FileSystem opened;
+    try {
+      opened = FileSystems.newFileSystem(uri, Map.of());
+    } catch (FileSystemAlreadyExistsException e) {
+      return classFiles(FileSystems.getFileSystem(uri).getPath(directory));
+    }
+    try (FileSystem jar = opened) {
+      return classFiles(jar.getPath(directory));
+    }
+  }
+
+  private static Stream<byte[]> classFiles(Path root) throws IOException {
+    List<byte[]> classFiles = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(root)) {
+      for (Path file : (Iterable<Path>) files.filter(
+          path -> path.toString().endsWith(".class"))::iterator) {
+        classFiles.add(Files.readAllBytes(file));
+      }
+    }
+    return classFiles.stream();
+  }
+
+  private ClassFile read(byte[] classFile) {
+    try {
+      return ClassFile.read(classFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Class<?> load(String name) {
+    try {
+      return Class.forName(name, false, classLoader);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
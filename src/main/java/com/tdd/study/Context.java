@@ -1,9 +1,30 @@
 package com.tdd.study;
 
+import com.tdd.study.exception.DependencyNotFoundException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
-public interface Context {
+public interface Context extends AutoCloseable {
 
   <T> Optional<T> get(ComponentRef<T> ref);
 
+  default <T> CompletableFuture<T> getAsync(ComponentRef<T> ref) {
+    return getAsync(ref, ForkJoinPool.commonPool());
+  }
+
+  default <T> CompletableFuture<T> getAsync(ComponentRef<T> ref, Executor executor) {
+    return CompletableFuture.supplyAsync(() -> get(ref).orElseThrow(
+        () -> new DependencyNotFoundException(ref.component())), executor);
+  }
+
+  @Override
+  default void close() {
+  }
+
+  default void close(Executor executor) {
+    close();
+  }
+
 }
@@ -2,35 +2,93 @@ package com.tdd.study;
 
 import static java.util.Arrays.stream;
 
+import com.tdd.study.ComponentScanner.Candidate;
 import com.tdd.study.exception.CyclicDependenciesFoundException;
 import com.tdd.study.exception.DependencyNotFoundException;
 import com.tdd.study.exception.IllegalComponentException;
-import jakarta.inject.Provider;
 import jakarta.inject.Qualifier;
 import jakarta.inject.Scope;
 import jakarta.inject.Singleton;
 import java.lang.annotation.Annotation;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 
 public class ContextConfig {
 
-  private Map<Component, ComponentProvider<?>> components = new HashMap<>();
+  private Map<Component, ComponentProvider<?>> components = new ConcurrentHashMap<>();
 
-  private Map<Class<?>, ScopeProvider> scopes = new HashMap<>();
+  private Map<Class<?>, ScopeProvider<?>> scopes = new ConcurrentHashMap<>();
+
+  private Map<Component, Class<? extends Annotation>> componentScopes = new ConcurrentHashMap<>();
+
+  private Map<Class<? extends Annotation>, AtomicInteger> scopeSlots = new ConcurrentHashMap<>();
+
+  private Map<Component, Integer> slots = new ConcurrentHashMap<>();
+
+  private QualifierIds qualifiers = new QualifierIds();
+
+  private Map<Component, Integer> qualifierIds = new ConcurrentHashMap<>();
+
+  private AtomicInteger nextSlot = new AtomicInteger();
+
+  private AtomicInteger singletonSlots = new AtomicInteger();
+
+  private volatile boolean lazy;
+
+  private AtomicLong version = new AtomicLong();
+
+  private volatile Bindings bindings;
+
+  private MetadataTable table = new MetadataTable(this::slotOf, false);
+
+  private ResolutionTracer tracer;
 
   public ContextConfig() {
     scope(Singleton.class, SingletonProvider::new);
   }
 
+  /**
+   * reflection on implementations and dependency validation happen when a component is first
+   * resolved instead of in bind and getContext, so illegal components fail late
+   */
+  public ContextConfig lazy() {
+    lazy = true;
+    version.incrementAndGet();
+    return this;
+  }
+
+  /**
+   * the given fraction of Context.get calls emits a ResolutionEvent to Flight Recorder for every
+   * component resolved, with its timing and whether its scope already held an instance
+   */
+  public ContextConfig trace(double samplingRate) {
+    tracer = new ResolutionTracer(samplingRate);
+    version.incrementAndGet();
+    return this;
+  }
+
+  /**
+   * injection metadata of all components shares equal dependency refs and slot arrays, trading
+   * lookups in bind for less heap per binding in large containers
+   */
+  public ContextConfig compact() {
+    table = new MetadataTable(this::slotOf, true);
+    return this;
+  }
+
   public <T> void bind(Class<T> type, T instance) {
-    components.put(new Component(type, null), context -> instance);
+    bind(new Component(type, null), new InstanceProvider<>(instance), Optional.empty());
   }
 
   public <T> void bind(Class<T> type, T instance, Annotation... qualifiers) {
@@ -39,7 +97,7 @@ public class ContextConfig {
       throw new IllegalComponentException();
     }
     for (Annotation qualifier : qualifiers) {
-      components.put(new Component(type, qualifier), context -> instance);
+      bind(new Component(type, qualifier), new InstanceProvider<>(instance), Optional.empty());
     }
   }
 
@@ -51,6 +109,21 @@ public class ContextConfig {
 
   public <Type, Implementation extends Type> void bind(Class<Type> type,
       Class<Implementation> implementation, Annotation... annotations) {
+    bind(type, implementation, annotations, () -> {
+      if (lazy) {
+        return new DeferredInjectionProvider<>(implementation, null, table);
+      }
+      InjectionProvider<?> injectionProvider = table.injection(implementation);
+      if (injectionProvider.isAssisted()) {
+        throw new IllegalComponentException();
+      }
+      return injectionProvider;
+    });
+  }
+
+  private <Type, Implementation extends Type> void bind(Class<Type> type,
+      Class<Implementation> implementation, Annotation[] annotations,
+      Supplier<ComponentProvider<?>> injection) {
 
     Map<? extends Class<?>, List<Annotation>> annotationGroups = stream(annotations).collect(
         Collectors.groupingBy(this::typeOf, Collectors.toList()));
@@ -59,36 +132,107 @@ public class ContextConfig {
       throw new IllegalComponentException();
     }
 
+    List<Annotation> scopes = annotationGroups.getOrDefault(Scope.class, List.of());
+    if (scopes.size() > 1) {
+      throw new IllegalComponentException();
+    }
+    Optional<Annotation> scope = scopes.stream().findFirst().or(() -> getScopeFromType(
+        implementation));
+
     bind(type, annotationGroups.getOrDefault(Qualifier.class, List.of()),
-        createScopedProvider(implementation,
-            annotationGroups.getOrDefault(Scope.class, List.of())));
+        createScopedProvider(injection.get(), scope), scope);
 
   }
 
-  private <Type, Implementation extends Type> ComponentProvider<?> createScopedProvider(
-      Class<Implementation> implementation, List<Annotation> scopes) {
-    if (scopes.size() > 1) {
+  /**
+   * the implementation is created through the Factory bound for the type, its @Assisted
+   * constructor parameters come from the caller and the rest from the context, a @Singleton
+   * implementation is created once per distinct arguments in each context, no other scope is
+   * allowed
+   */
+  public <Type, Implementation extends Type> void bindFactory(Class<Type> type,
+      Class<Implementation> implementation, Annotation... qualifiers) {
+    if (stream(qualifiers).anyMatch(
+        q -> !q.annotationType().isAnnotationPresent(Qualifier.class))) {
       throw new IllegalComponentException();
     }
-    Optional<Annotation> scope = scopes.stream().findFirst().or(() -> getScopeFromType(
-        implementation));
-    InjectionProvider<?> injectionProvider = new InjectionProvider<>(implementation);
+    Optional<Annotation> scope = getScopeFromType(implementation);
+    if (scope.filter(s -> s.annotationType() != Singleton.class).isPresent()) {
+      throw new IllegalComponentException();
+    }
+    InjectionProvider<Implementation> injectionProvider = table.injection(implementation);
+    boolean keyed = scope.isPresent();
+    bind(type, List.of(qualifiers), new AssistedProvider<>(injectionProvider, keyed),
+        Optional.empty());
+  }
 
-    ComponentProvider<?> provider = scope.<ComponentProvider<?>>map(
-            s -> getScopeProvider(s, injectionProvider))
+  /**
+   * scanned components are bound with dependencies read from their class files, reflection on
+   * the implementation is deferred until it is first resolved
+   */
+  public void scan(String packageName) {
+    ClassLoader classLoader = Optional.ofNullable(Thread.currentThread().getContextClassLoader())
+        .orElse(ContextConfig.class.getClassLoader());
+    ClassFileInjection classFileInjection = new ClassFileInjection(classLoader);
+    new ComponentScanner(classLoader).scan(packageName).parallelStream()
+        .forEach(component -> bindScanned(component, classFileInjection));
+  }
+
+  private void bindScanned(Candidate component, ClassFileInjection classFileInjection) {
+    ScanEvent event = new ScanEvent();
+    event.begin();
+    Optional<List<ComponentRef<?>>> dependencies = classFileInjection.getDependencies(
+        component.classFile());
+    event.end();
+    if (event.shouldCommit()) {
+      event.component = component.type();
+      event.fromClassFile = dependencies.isPresent();
+      event.dependencies = dependencies.map(List::size).orElse(0);
+      event.commit();
+    }
+    bindScanned(component.type(), dependencies);
+  }
+
+  private <Implementation> void bindScanned(Class<Implementation> implementation,
+      Optional<List<ComponentRef<?>>> dependencies) {
+    if (dependencies.isEmpty()) {
+      bind(implementation, implementation);
+      return;
+    }
+    List<ComponentRef<?>> canonical = dependencies.get().stream()
+        .<ComponentRef<?>>map(table::canonical).toList();
+    bind(implementation, implementation, implementation.getAnnotations(),
+        () -> new DeferredInjectionProvider<>(implementation, canonical, table));
+  }
+
+  private ComponentProvider<?> createScopedProvider(ComponentProvider<?> injectionProvider,
+      Optional<Annotation> scope) {
+    return scope.<ComponentProvider<?>>map(s -> getScopeProvider(s, injectionProvider))
         .orElse(injectionProvider);
-    return provider;
   }
 
   private <Type> void bind(Class<Type> type, List<Annotation> qualifiers,
-      ComponentProvider<?> provider) {
+      ComponentProvider<?> provider, Optional<Annotation> scope) {
     if (qualifiers.isEmpty()) {
-      components.put(new Component(type, null), provider);
+      bind(new Component(type, null), provider, scope);
       return;
     }
     for (Annotation qualifier : qualifiers) {
-      components.put(new Component(type, qualifier), provider);
+      bind(new Component(type, qualifier), provider, scope);
+    }
+  }
+
+  private void bind(Component component, ComponentProvider<?> provider,
+      Optional<Annotation> scope) {
+    slotOf(component);
+    qualifierIds.computeIfAbsent(component, c -> qualifiers.of(c.qualifier()));
+    if (provider instanceof SingletonProvider<?> singleton && !singleton.isAssigned()) {
+      singleton.assign(singletonSlots.getAndIncrement());
     }
+    components.put(component, provider);
+    scope.ifPresentOrElse(s -> componentScopes.put(component, s.annotationType()),
+        () -> componentScopes.remove(component));
+    version.incrementAndGet();
   }
 
   private static <Type, Implementation extends Type> Optional<Annotation> getScopeFromType(
@@ -108,56 +252,154 @@ public class ContextConfig {
 
   }
 
-  private ComponentProvider<?> getScopeProvider(Annotation scope, InjectionProvider<?> provider) {
+  private ComponentProvider<?> getScopeProvider(Annotation scope, ComponentProvider<?> provider) {
     if (!scopes.containsKey(scope.annotationType())) {
       throw new IllegalComponentException();
     }
-    return scopes.get(scope.annotationType()).create(provider);
+    return scopes.get(scope.annotationType()).create(provider,
+        new ScopeBinding(scope.annotationType(), scopeSlots.computeIfAbsent(
+            scope.annotationType(), type -> new AtomicInteger()).getAndIncrement()));
   }
 
-  public <T extends Annotation> void scope(Class<T> scope, ScopeProvider provider) {
+  public <T extends Annotation, Instance> void scope(Class<T> scope,
+      ScopeProvider<Instance> provider) {
     scopes.put(scope, provider);
+    version.incrementAndGet();
   }
 
+  /**
+   * the bindings are laid out and validated once per change to the config, contexts got in
+   * between share them. Singletons are not shared, every call returns a context with singleton
+   * instances of its own that are destroyed when it is closed. Callers wanting the same
+   * singletons keep one context
+   */
   public Context getContext() {
-    components.keySet().forEach(component -> checkDependencies(component, new Stack<>()));
-    return new Context() {
+    return new ComponentContext(bindings());
+  }
 
-      @Override
-      public <T> Optional<T> get(ComponentRef<T> ref) {
-        if (ref.isContainer()) {
-          if (ref.getContainerType() != Provider.class) {
-            return Optional.empty();
-          }
+  private Bindings bindings() {
+    long version = this.version.get();
+    Bindings current = bindings;
+    if (current != null && current.version == version) {
+      return current;
+    }
+    Map<Component, ComponentProvider<?>> bindings = new HashMap<>(components);
+    Map<Component, Integer> slots = new HashMap<>(this.slots);
+    int slotCount = nextSlot.get();
+    Map<Class<?>, Integer> scopedSlots = new HashMap<>();
+    scopeSlots.forEach((scope, count) -> scopedSlots.put(scope, count.get()));
+    boolean lazy = this.lazy;
+    if (!lazy) {
+      validate(bindings, slots, slotCount);
+    }
+    current = new Bindings(version, slots, QualifierTable.index(slots, qualifierIds), qualifiers,
+        bindings, slotCount, singletonSlots.get(), new HashMap<>(scopes), scopedSlots,
+        lazy ? component -> checkDirectDependencies(bindings, component) : null, tracer);
+    this.bindings = current;
+    return current;
+  }
 
-          return (Optional<T>) Optional.ofNullable(
-                  components.get(ref.component()))
-              .map(componentProvider -> (Provider<T>) () -> (T) componentProvider.get(this));
+  private int slotOf(Component component) {
+    return slots.computeIfAbsent(component, c -> nextSlot.getAndIncrement());
+  }
 
-        }
-        return Optional.ofNullable(
-                components.get(ref.component()))
-            .map(provider -> (T) provider.get(this));
+  public DependencyGraph getDependencyGraph() {
+    Map<Component, ComponentProvider<?>> bindings = new HashMap<>(components);
+    validate(bindings, new HashMap<>(slots), nextSlot.get());
+    return new DependencyGraph(bindings, componentScopes);
+  }
+
+  /**
+   * walks the bindings by slot, canonical refs give the slot of a dependency without hashing its
+   * component, each subgraph is walked once
+   */
+  private void validate(Map<Component, ComponentProvider<?>> bindings,
+      Map<Component, Integer> slots, int slotCount) {
+    ComponentProvider<?>[] providers = new ComponentProvider<?>[slotCount];
+    Component[] components = new Component[slotCount];
+    bindings.forEach((component, provider) -> {
+      int slot = slots.get(component);
+      providers[slot] = provider;
+      components[slot] = component;
+    });
+    BitSet checked = new BitSet(slotCount);
+    for (int slot = 0; slot < slotCount; slot++) {
+      if (providers[slot] != null) {
+        checkDependencies(providers, components, slots, slot, new Stack<>(), new BitSet(), checked);
       }
-    };
+    }
   }
 
-  private void checkDependencies(Component component, Stack<Component> visiting) {
-    for (ComponentRef dependency : components.get(component).getDependencies()) {
-      if (!components.containsKey(dependency.component())) {
+  /**
+   * cycles are left to the runtime guard in ComponentContext
+   */
+  private void checkDirectDependencies(Map<Component, ComponentProvider<?>> components,
+      Component component) {
+    ValidationEvent event = new ValidationEvent();
+    event.begin();
+    List<ComponentRef<?>> dependencies = components.get(component).getDependencies();
+    for (ComponentRef<?> dependency : dependencies) {
+      if (!isBound(components, dependency)) {
         throw new DependencyNotFoundException(component, dependency.component());
       }
+    }
+    commit(event, component, dependencies);
+  }
+
+  private static void commit(ValidationEvent event, Component component,
+      List<ComponentRef<?>> dependencies) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.component = component.type();
+      event.dependencies = dependencies.size();
+      event.commit();
+    }
+  }
+
+  /**
+   * components bound with a factory can only be injected as Factory, and Factory only for them
+   */
+  private static boolean isBound(Map<Component, ComponentProvider<?>> components,
+      ComponentRef<?> dependency) {
+    return isBound(components.get(dependency.component()), dependency);
+  }
+
+  private static boolean isBound(ComponentProvider<?> provider, ComponentRef<?> dependency) {
+    return provider != null && (provider instanceof AssistedProvider<?>) == (
+        dependency.getContainerType() == Factory.class);
+  }
+
+  private void checkDependencies(ComponentProvider<?>[] providers, Component[] components,
+      Map<Component, Integer> slots, int slot, Stack<Component> visiting, BitSet visitingSlots,
+      BitSet checked) {
+    if (checked.get(slot)) {
+      return;
+    }
+    ValidationEvent event = new ValidationEvent();
+    event.begin();
+    List<ComponentRef<?>> dependencies = providers[slot].getDependencies();
+    for (ComponentRef<?> dependency : dependencies) {
+      int dependencySlot = dependency.slot() >= 0 ? dependency.slot()
+          : slots.getOrDefault(dependency.component(), -1);
+      if (dependencySlot < 0 || dependencySlot >= providers.length || !isBound(
+          providers[dependencySlot], dependency)) {
+        throw new DependencyNotFoundException(components[slot], dependency.component());
+      }
       if (!dependency.isContainer()) {
-        if (visiting.contains(dependency.component())) {
+        if (visitingSlots.get(dependencySlot)) {
           throw new CyclicDependenciesFoundException(visiting);
         }
         visiting.push(dependency.component());
-        checkDependencies(dependency.component(), visiting);
+        visitingSlots.set(dependencySlot);
+        checkDependencies(providers, components, slots, dependencySlot, visiting, visitingSlots,
+            checked);
+        visitingSlots.clear(dependencySlot);
         visiting.pop();
       }
-
     }
-
+    checked.set(slot);
+    commit(event, components[slot], dependencies);
   }
 
+
 }
@@ -0,0 +1,54 @@
+package com.tdd.study;
+
+import java.util.List;
+
+final class DeferredInjectionProvider<T> implements ComponentProvider<T> {
+
+  private final Class<T> component;
+
+  private final List<ComponentRef<?>> dependencies;
+
+  private final MetadataTable table;
+
+  private volatile InjectionProvider<T> provider;
+
+  DeferredInjectionProvider(Class<T> component, List<ComponentRef<?>> dependencies,
+      MetadataTable table) {
+    this.component = component;
+    this.dependencies = dependencies;
+    this.table = table;
+  }
+
+  @Override
+  public T get(Context context) {
+    return provider().get(context);
+  }
+
+  @Override
+  public void destroy(T instance) {
+    InjectionProvider<T> provider = this.provider;
+    if (provider != null) {
+      provider.destroy(instance);
+    }
+  }
+
+  @Override
+  public List<ComponentRef<?>> getDependencies() {
+    return dependencies != null ? dependencies : provider().getDependencies();
+  }
+
+  InjectionProvider<T> provider() {
+    InjectionProvider<T> provider = this.provider;
+    if (provider == null) {
+      synchronized (this) {
+        provider = this.provider;
+        if (provider == null) {
+          provider = new InjectionProvider<>(component);
+          provider.link(table);
+          this.provider = provider;
+        }
+      }
+    }
+    return provider;
+  }
+}
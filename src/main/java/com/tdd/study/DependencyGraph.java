@@ -0,0 +1,199 @@
+package com.tdd.study;
+
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toMap;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * validated component graph, edges are marked as direct or via Provider. Construction cost is
+ * only annotated after {@link #measure(Context)}
+ */
+public class DependencyGraph {
+
+  private final Map<Component, Node> nodes = new LinkedHashMap<>();
+
+  private final List<Edge> edges = new ArrayList<>();
+
+  private final Map<Component, List<Component>> directDependencies = new HashMap<>();
+
+  private final Map<Component, Long> costs = new HashMap<>();
+
+  DependencyGraph(Map<Component, ComponentProvider<?>> components,
+      Map<Component, Class<? extends Annotation>> scopes) {
+    components.forEach((component, provider) -> {
+      nodes.put(component, new Node(component, scopes.get(component),
+          provider instanceof InstanceProvider<?>));
+      Set<Component> direct = new LinkedHashSet<>();
+      for (ComponentRef<?> dependency : provider.getDependencies()) {
+        edges.add(new Edge(component, dependency.component(), dependency.isContainer()));
+        if (!dependency.isContainer()) {
+          direct.add(dependency.component());
+        }
+      }
+      directDependencies.put(component, List.copyOf(direct));
+    });
+  }
+
+  public Collection<Node> getNodes() {
+    return Collections.unmodifiableCollection(nodes.values());
+  }
+
+  public List<Edge> getEdges() {
+    return Collections.unmodifiableList(edges);
+  }
+
+  public OptionalLong getCost(Component component) {
+    return Optional.ofNullable(costs.get(component)).map(OptionalLong::of)
+        .orElse(OptionalLong.empty());
+  }
+
+  /**
+   * resolve every component once, dependencies first. Cost is the component's own construction
+   * time, i.e. excluding the prototypes it rebuilt for its direct dependencies
+   */
+  public void measure(Context context) {
+    Map<Component, Long> inclusive = new HashMap<>();
+    for (Component component : topologicalOrder()) {
+      long start = System.nanoTime();
+      context.get(ComponentRef.of(component.type(), component.qualifier()));
+      long elapsed = System.nanoTime() - start;
+      inclusive.put(component, elapsed);
+
+      long rebuilt = directDependencies(component).stream()
+          .filter(dependency -> nodes.get(dependency).isPrototype())
+          .mapToLong(inclusive::get).sum();
+      costs.put(component, Math.max(0, elapsed - rebuilt));
+    }
+  }
+
+  /**
+   * most expensive chain of direct dependencies, from the dependent down to the leaf
+   */
+  public List<Component> criticalPath() {
+    Map<Component, List<Component>> paths = new HashMap<>();
+    return nodes.keySet().stream().map(component -> criticalPath(component, paths))
+        .max(comparing(this::costOf).thenComparing(List::size)).orElse(List.of());
+  }
+
+  /**
+   * number of dependents per component, hot spots first
+   */
+  public Map<Component, Long> fanIn() {
+    Map<Component, Long> counts = new HashMap<>();
+    nodes.keySet().forEach(component -> counts.put(component, 0L));
+    edges.forEach(edge -> counts.merge(edge.to(), 1L, Long::sum));
+    return counts.entrySet().stream()
+        .sorted(Entry.<Component, Long>comparingByValue().reversed())
+        .collect(toMap(Entry::getKey, Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+  }
+
+  public String toDot() {
+    StringBuilder dot = new StringBuilder("digraph components {\n");
+    for (Node node : nodes.values()) {
+      dot.append("  ").append(quote(idOf(node.component()))).append(" [label=")
+          .append(quote(idOf(node.component()) + "\n" + node.scopeName()
+              + getCost(node.component()).stream().mapToObj(cost -> "\n" + cost + "ns")
+              .collect(joining())))
+          .append("];\n");
+    }
+    for (Edge edge : edges) {
+      dot.append("  ").append(quote(idOf(edge.from()))).append(" -> ")
+          .append(quote(idOf(edge.to()))).append(edge.provider() ? " [style=dashed]" : "")
+          .append(";\n");
+    }
+    return dot.append("}\n").toString();
+  }
+
+  public String toJson() {
+    String nodesJson = nodes.values().stream()
+        .map(node -> "{\"id\":" + quote(idOf(node.component()))
+            + ",\"type\":" + quote(node.component().type().getName())
+            + ",\"qualifier\":" + Optional.ofNullable(node.component().qualifier())
+            .map(qualifier -> quote(qualifier.toString())).orElse("null")
+            + ",\"scope\":" + quote(node.scopeName())
+            + ",\"cost\":" + Optional.ofNullable(costs.get(node.component())).map(String::valueOf)
+            .orElse("null") + "}")
+        .collect(joining(","));
+    String edgesJson = edges.stream().map(edge -> "{\"from\":" + quote(idOf(edge.from()))
+            + ",\"to\":" + quote(idOf(edge.to())) + ",\"provider\":" + edge.provider() + "}")
+        .collect(joining(","));
+    return "{\"nodes\":[" + nodesJson + "],\"edges\":[" + edgesJson + "]}";
+  }
+
+  private List<Component> criticalPath(Component component, Map<Component, List<Component>> paths) {
+    if (paths.containsKey(component)) {
+      return paths.get(component);
+    }
+    List<Component> path = new LinkedList<>(directDependencies(component).stream()
+        .map(dependency -> criticalPath(dependency, paths))
+        .max(comparing(this::costOf).thenComparing(List::size)).orElse(List.of()));
+    path.add(0, component);
+    paths.put(component, path);
+    return path;
+  }
+
+  private long costOf(List<Component> path) {
+    return path.stream().mapToLong(component -> costs.getOrDefault(component, 0L)).sum();
+  }
+
+  private List<Component> topologicalOrder() {
+    Set<Component> visited = new LinkedHashSet<>();
+    nodes.keySet().forEach(component -> visit(component, visited));
+    return new ArrayList<>(visited);
+  }
+
+  private void visit(Component component, Set<Component> visited) {
+    if (visited.contains(component)) {
+      return;
+    }
+    directDependencies(component).forEach(dependency -> visit(dependency, visited));
+    visited.add(component);
+  }
+
+  private List<Component> directDependencies(Component component) {
+    return directDependencies.getOrDefault(component, List.of());
+  }
+
+  private static String idOf(Component component) {
+    return component.qualifier() == null ? component.type().getName()
+        : component.type().getName() + " " + component.qualifier();
+  }
+
+  private static String quote(String value) {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")
+        + "\"";
+  }
+
+  public record Node(Component component, Class<? extends Annotation> scope, boolean instance) {
+
+    boolean isPrototype() {
+      return scope == null && !instance;
+    }
+
+    String scopeName() {
+      if (instance) {
+        return "instance";
+      }
+      return scope == null ? "prototype" : scope.getSimpleName();
+    }
+  }
+
+  public record Edge(Component from, Component to, boolean provider) {
+
+  }
+}
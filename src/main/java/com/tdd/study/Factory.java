@@ -0,0 +1,10 @@
+package com.tdd.study;
+
+/**
+ * creates a component bound by ContextConfig.bindFactory, the arguments fill its @Assisted
+ * constructor parameters in declaration order
+ */
+public interface Factory<T> {
+
+  T create(Object... arguments);
+}
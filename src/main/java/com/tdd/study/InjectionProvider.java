@@ -4,9 +4,15 @@ import static java.util.Arrays.stream;
 import static java.util.stream.Stream.concat;
 
 import com.tdd.study.exception.IllegalComponentException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
+import jakarta.inject.Provider;
 import jakarta.inject.Qualifier;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Constructor;
@@ -21,12 +27,25 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-public class InjectionProvider<T> implements ComponentProvider<T> {
+public final class InjectionProvider<T> implements ComponentProvider<T> {
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private static final int[] NOT_ASSISTED = new int[0];
+
+  /**
+   * like reflection inflation in the JDK, components created only a few times never pay for
+   * generating their provider class
+   */
+  private static final int GENERATION_THRESHOLD = 16;
 
   private List<Injectable<Field>> injectFields;
 
@@ -34,8 +53,21 @@ public class InjectionProvider<T> implements ComponentProvider<T> {
 
   private List<Injectable<Method>> injectMethods;
 
+  private int[] assisted;
+
+  private int dependencies;
+
+  private final AtomicInteger invocations = new AtomicInteger();
+
+  private volatile Function<Object[], Object> generated;
+
+  private List<MethodHandle> postConstructs;
+
+  private List<MethodHandle> preDestroys;
 
   public InjectionProvider(Class<T> component) {
+    BindEvent event = new BindEvent();
+    event.begin();
     if (Modifier.isAbstract(component.getModifiers())) {
       throw new IllegalComponentException();
     }
@@ -53,25 +85,178 @@ public class InjectionProvider<T> implements ComponentProvider<T> {
         .anyMatch(method -> method.getTypeParameters().length != 0)) {
       throw new IllegalComponentException();
     }
+    if (injectMethods.stream().map(methodInjectable -> methodInjectable.element)
+        .flatMap(method -> stream(method.getParameters()))
+        .anyMatch(parameter -> parameter.isAnnotationPresent(Assisted.class))) {
+      throw new IllegalComponentException();
+    }
+
+    Parameter[] parameters = injectConstructor.element.getParameters();
+    int[] assisted = IntStream.range(0, parameters.length)
+        .filter(i -> parameters[i].isAnnotationPresent(Assisted.class)).toArray();
+    this.assisted = assisted.length == 0 ? NOT_ASSISTED : assisted;
+
+    this.dependencies = getDependencies().size();
+
+    this.postConstructs = getLifecycleMethods(component, PostConstruct.class);
+
+    this.preDestroys = getLifecycleMethods(component, PreDestroy.class);
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.implementation = component;
+      event.dependencies = dependencies;
+      event.fields = injectFields.size();
+      event.methods = injectMethods.size();
+      event.commit();
+    }
   }
 
   @Override
   public T get(Context context) {
+    Function<Object[], Object> generated = this.generated;
+    if (generated != null) {
+      return construct(generated, toDependencies(context));
+    }
+    invoked();
+    return create(injectable -> injectable.toDependencies(context), NO_ARGUMENTS);
+  }
+
+  /**
+   * only the thread reaching the threshold generates, and the count stops there so a component
+   * that cannot be generated does not keep contending on it
+   */
+  private void invoked() {
+    if (invocations.get() < GENERATION_THRESHOLD
+        && invocations.incrementAndGet() == GENERATION_THRESHOLD && !isAssisted()) {
+      this.generated = ProviderGenerator.generate(injectConstructor.element,
+          injectFields.stream().map(Injectable::element).toList(),
+          injectMethods.stream().map(Injectable::element).toList()).orElse(null);
+    }
+  }
+
+  boolean isGenerated() {
+    return generated != null;
+  }
+
+  /**
+   * resolves the dependencies in the order of getDependencies()
+   */
+  Object[] toDependencies(Context context) {
+    Object[] resolved = new Object[dependencies];
+    int offset = injectConstructor.toDependencies(context, resolved, 0);
+    for (Injectable<Field> field : injectFields) {
+      offset = field.toDependencies(context, resolved, offset);
+    }
+    for (Injectable<Method> method : injectMethods) {
+      offset = method.toDependencies(context, resolved, offset);
+    }
+    return resolved;
+  }
+
+  /**
+   * the generated class throws what the component throws, checked exceptions are wrapped the way
+   * the reflective path wraps them
+   */
+  private T construct(Function<Object[], Object> generated, Object[] dependencies) {
     try {
+      T instance = (T) generated.apply(dependencies);
+      invoke(postConstructs, instance);
+      return instance;
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(new InvocationTargetException(e));
+    }
+  }
+
+  T get(Context context, Object[] arguments) {
+    return create(injectable -> injectable.toDependencies(context), arguments);
+  }
+
+  boolean isAssisted() {
+    return assisted.length != 0;
+  }
+
+  /**
+   * creates the component from dependencies already resolved, in the order of getDependencies(),
+   * the array is only read so it may be passed again
+   */
+  T get(Object[] dependencies) {
+    Function<Object[], Object> generated = this.generated;
+    if (generated != null) {
+      return construct(generated, dependencies);
+    }
+    invoked();
+    int[] offset = {0};
+    return create(injectable -> Arrays.copyOfRange(dependencies, offset[0],
+        offset[0] += injectable.required.length), NO_ARGUMENTS);
+  }
 
-      T instance = injectConstructor.element.newInstance(injectConstructor.toDependencies(context));
+  private T create(Function<Injectable<?>, Object[]> dependencies, Object[] arguments) {
+    if (arguments.length != assisted.length) {
+      throw new IllegalArgumentException(
+          "expected " + assisted.length + " assisted arguments but got " + arguments.length);
+    }
+    try {
+      T instance = injectConstructor.element.newInstance(
+          withAssisted(dependencies.apply(injectConstructor), arguments));
       for (Injectable<Field> field : injectFields) {
-        field.element.set(instance, field.toDependencies(context)[0]);
+        field.element.set(instance, dependencies.apply(field)[0]);
       }
       for (Injectable<Method> method : injectMethods) {
-        method.element.invoke(instance, method.toDependencies(context));
+        method.element.invoke(instance, dependencies.apply(method));
       }
+      invoke(postConstructs, instance);
       return instance;
-    } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new RuntimeException(e);
+    } catch (InstantiationException | IllegalAccessException e) {
       throw new RuntimeException(e);
     }
   }
 
+  private Object[] withAssisted(Object[] dependencies, Object[] arguments) {
+    if (arguments.length == 0) {
+      return dependencies;
+    }
+    Object[] parameters = new Object[dependencies.length + arguments.length];
+    for (int i = 0, dependency = 0, argument = 0; i < parameters.length; i++) {
+      parameters[i] = argument < assisted.length && assisted[argument] == i
+          ? arguments[argument++] : dependencies[dependency++];
+    }
+    return parameters;
+  }
+
+  void link(MetadataTable table) {
+    injectConstructor = injectConstructor.link(table);
+    injectFields = injectFields.stream().map(field -> field.link(table)).toList();
+    injectMethods = injectMethods.stream().map(method -> method.link(table)).toList();
+  }
+
+  @Override
+  public void destroy(T instance) {
+    invoke(preDestroys, instance);
+  }
+
+  private static void invoke(List<MethodHandle> callbacks, Object instance) {
+    for (MethodHandle callback : callbacks) {
+      try {
+        callback.invokeExact(instance);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
   @Override
   public List<ComponentRef<?>> getDependencies() {
     return concat(concat(Stream.of(injectConstructor), injectFields.stream()),
@@ -107,6 +292,33 @@ public class InjectionProvider<T> implements ComponentProvider<T> {
         .map(field -> Injectable.of(field)).toList();
   }
 
+  private static List<MethodHandle> getLifecycleMethods(Class<?> component,
+      Class<? extends Annotation> lifecycle) {
+    List<Method> methods = traverse(component, (found, current) -> stream(
+        current.getDeclaredMethods())
+        .filter(method -> method.isAnnotationPresent(lifecycle))
+        .filter(method -> found.stream().noneMatch(isOverride(method)))
+        .filter(method -> stream(component.getDeclaredMethods())
+            .filter(override -> !override.isAnnotationPresent(lifecycle))
+            .noneMatch(isOverride(method)))
+        .collect(Collectors.toList()));
+    if (methods.stream().anyMatch(method -> method.getParameterCount() != 0)) {
+      throw new IllegalComponentException();
+    }
+    Collections.reverse(methods);
+    return methods.stream().map(InjectionProvider::toHandle).toList();
+  }
+
+  private static MethodHandle toHandle(Method method) {
+    try {
+      method.setAccessible(true);
+      return MethodHandles.lookup().unreflect(method)
+          .asType(MethodType.methodType(void.class, Object.class));
+    } catch (IllegalAccessException e) {
+      throw new IllegalComponentException();
+    }
+  }
+
   private static <T extends AnnotatedElement> Stream<T> injectable(T[] elements) {
     return stream(elements)
         .filter(element -> element.isAnnotationPresent(Inject.class));
@@ -149,20 +361,57 @@ public class InjectionProvider<T> implements ComponentProvider<T> {
 
 
   static record Injectable<Element extends AccessibleObject>(Element element,
-                                                             ComponentRef<?>[] required) {
+                                                             ComponentRef<?>[] required,
+                                                             int[] slots) {
     static <T extends Executable> Injectable<T> of(T constructor) {
-      return new Injectable<>(constructor, stream(constructor.getParameters()).map(
-          Injectable::toComponentRef).toArray(ComponentRef<?>[]::new));
+      return new Injectable<>(constructor, stream(constructor.getParameters())
+          .filter(parameter -> !parameter.isAnnotationPresent(Assisted.class))
+          .map(Injectable::toComponentRef).toArray(ComponentRef<?>[]::new), null);
     }
 
     static Injectable<Field> of(Field field) {
-      return new Injectable<>(field, new ComponentRef<?>[]{toComponentRef(field)});
+      return new Injectable<>(field, new ComponentRef<?>[]{toComponentRef(field)}, null);
+    }
+
+    Injectable<Element> link(MetadataTable table) {
+      ComponentRef<?>[] refs = table.intern(required);
+      return new Injectable<>(element, refs,
+          table.intern(stream(refs).mapToInt(ComponentRef::slot).toArray()));
+    }
+
+    int toDependencies(Context context, Object[] dependencies, int offset) {
+      if (slots != null && context instanceof ComponentContext components) {
+        for (int i = 0; i < slots.length; i++) {
+          dependencies[offset + i] = toDependency(components, i);
+        }
+      } else {
+        System.arraycopy(toDependencies(context), 0, dependencies, offset, required.length);
+      }
+      return offset + required.length;
     }
 
     Object[] toDependencies(Context context) {
+      if (slots != null && context instanceof ComponentContext components) {
+        Object[] dependencies = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+          dependencies[i] = toDependency(components, i);
+        }
+        return dependencies;
+      }
       return stream(required).map(context::get).map(Optional::get).toArray();
     }
 
+    private Object toDependency(ComponentContext context, int index) {
+      ComponentRef<?> ref = required[index];
+      if (!ref.isContainer()) {
+        return context.resolve(slots[index]);
+      }
+      if (ref.getContainerType() == Provider.class) {
+        return context.provider(slots[index]);
+      }
+      return context.get(ref).get();
+    }
+
     private static ComponentRef toComponentRef(Field field) {
       return ComponentRef.of(field.getGenericType(), getQualifier(field));
     }
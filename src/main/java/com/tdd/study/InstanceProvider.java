@@ -0,0 +1,9 @@
+package com.tdd.study;
+
+record InstanceProvider<T>(T instance) implements ComponentProvider<T> {
+
+  @Override
+  public T get(Context context) {
+    return instance;
+  }
+}
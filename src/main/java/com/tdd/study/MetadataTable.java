@@ -0,0 +1,110 @@
+package com.tdd.study;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * links injection points to slots through one canonical ref per distinct dependency, in compact
+ * mode equal ref and slot arrays are shared by all the components bound in a config as well
+ */
+final class MetadataTable {
+
+  private static final ComponentRef<?>[] NO_REFS = new ComponentRef<?>[0];
+
+  private static final int[] NO_SLOTS = new int[0];
+
+  private final ToIntFunction<Component> slotOf;
+
+  private final boolean compact;
+
+  private final Map<ComponentRef<?>, ComponentRef<?>> refs = new ConcurrentHashMap<>();
+
+  private final Map<Refs, Refs> refArrays = new ConcurrentHashMap<>();
+
+  private final Map<Slots, Slots> slotArrays = new ConcurrentHashMap<>();
+
+  private final Map<Class<?>, InjectionProvider<?>> providers = new ConcurrentHashMap<>();
+
+  MetadataTable(ToIntFunction<Component> slotOf, boolean compact) {
+    this.slotOf = slotOf;
+    this.compact = compact;
+  }
+
+  /**
+   * in compact mode all the bindings of an implementation share one provider
+   */
+  <T> InjectionProvider<T> injection(Class<T> implementation) {
+    if (!compact) {
+      return link(new InjectionProvider<>(implementation));
+    }
+    return (InjectionProvider<T>) providers.computeIfAbsent(implementation,
+        type -> link(new InjectionProvider<>(type)));
+  }
+
+  private <T> InjectionProvider<T> link(InjectionProvider<T> provider) {
+    provider.link(this);
+    return provider;
+  }
+
+  int slotOf(Component component) {
+    return slotOf.applyAsInt(component);
+  }
+
+  <T> ComponentRef<T> canonical(ComponentRef<T> ref) {
+    if (ref.slot() >= 0) {
+      return ref;
+    }
+    return (ComponentRef<T>) refs.computeIfAbsent(ref,
+        key -> key.linked(slotOf(key.component())));
+  }
+
+  ComponentRef<?>[] intern(ComponentRef<?>[] required) {
+    if (required.length == 0) {
+      return NO_REFS;
+    }
+    ComponentRef<?>[] canonical = Arrays.stream(required).map(this::canonical)
+        .toArray(ComponentRef<?>[]::new);
+    if (!compact) {
+      return canonical;
+    }
+    return refArrays.computeIfAbsent(new Refs(canonical), key -> key).refs();
+  }
+
+  int[] intern(int[] slots) {
+    if (slots.length == 0) {
+      return NO_SLOTS;
+    }
+    if (!compact) {
+      return slots;
+    }
+    return slotArrays.computeIfAbsent(new Slots(slots), key -> key).slots();
+  }
+
+  private record Refs(ComponentRef<?>[] refs) {
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Refs other && Arrays.equals(refs, other.refs);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(refs);
+    }
+  }
+
+  private record Slots(int[] slots) {
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Slots other && Arrays.equals(slots, other.slots);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(slots);
+    }
+  }
+}
@@ -0,0 +1,323 @@
+package com.tdd.study;
+
+import static java.lang.invoke.MethodHandles.Lookup.ClassOption.NESTMATE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * defines a hidden class next to the component whose apply is the straight-line code a hand
+ * written factory would be: call the inject constructor, set the inject fields and call the inject
+ * methods with the dependencies given in the order of InjectionProvider.getDependencies(). Any
+ * component the hidden class could not access directly is left to reflection
+ */
+final class ProviderGenerator {
+
+  private static final int ACC_PUBLIC = 0x0001;
+
+  private static final int ACC_FINAL = 0x0010;
+
+  private static final int ACC_SUPER = 0x0020;
+
+  private static final int ICONST_0 = 0x03;
+
+  private static final int BIPUSH = 0x10;
+
+  private static final int SIPUSH = 0x11;
+
+  private static final int ALOAD_0 = 0x2a;
+
+  private static final int ALOAD_1 = 0x2b;
+
+  private static final int AALOAD = 0x32;
+
+  private static final int ASTORE_1 = 0x4c;
+
+  private static final int POP = 0x57;
+
+  private static final int POP2 = 0x58;
+
+  private static final int DUP = 0x59;
+
+  private static final int ARETURN = 0xb0;
+
+  private static final int RETURN = 0xb1;
+
+  private static final int PUTFIELD = 0xb5;
+
+  private static final int INVOKEVIRTUAL = 0xb6;
+
+  private static final int INVOKESPECIAL = 0xb7;
+
+  private static final int NEW = 0xbb;
+
+  private static final int CHECKCAST = 0xc0;
+
+  private ProviderGenerator() {
+  }
+
+  static Optional<Function<Object[], Object>> generate(Constructor<?> constructor,
+      List<Field> fields, List<Method> methods) {
+    Class<?> component = constructor.getDeclaringClass();
+    if (!Stream.<Member>concat(Stream.of(constructor), Stream.concat(fields.stream(),
+        methods.stream())).allMatch(member -> isAccessible(member, component))) {
+      return Optional.empty();
+    }
+    try {
+      Lookup lookup = MethodHandles.privateLookupIn(component, MethodHandles.lookup())
+          .defineHiddenClass(new ClassWriter(component).write(constructor, fields, methods), true,
+              NESTMATE);
+      return Optional.of((Function<Object[], Object>) lookup.findConstructor(
+          lookup.lookupClass(), MethodType.methodType(void.class)).invoke());
+    } catch (Throwable e) {
+      return Optional.empty();
+    }
+  }
+
+  private static boolean isAccessible(Member member, Class<?> component) {
+    Class<?>[] types = member instanceof Field field ? new Class<?>[]{field.getType()}
+        : ((Executable) member).getParameterTypes();
+    if (Stream.of(types).anyMatch(type -> type.isPrimitive() || !isAccessible(type, component))) {
+      return false;
+    }
+    if (!isAccessible(member.getDeclaringClass(), component)) {
+      return false;
+    }
+    int modifiers = member.getModifiers();
+    if (Modifier.isPublic(modifiers)) {
+      return true;
+    }
+    if (Modifier.isPrivate(modifiers)) {
+      return member.getDeclaringClass().getNestHost() == component.getNestHost();
+    }
+    return isSamePackage(member.getDeclaringClass(), component);
+  }
+
+  /**
+   * member classes declared protected are public in their class file, private ones are package
+   * private
+   */
+  private static boolean isAccessible(Class<?> type, Class<?> component) {
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    if (type.isPrimitive() || isSamePackage(type, component)) {
+      return true;
+    }
+    int modifiers = type.getModifiers();
+    return (Modifier.isPublic(modifiers) || type.isMemberClass() && Modifier.isProtected(
+        modifiers)) && type.getModule().isExported(type.getPackageName(), component.getModule());
+  }
+
+  private static boolean isSamePackage(Class<?> type, Class<?> component) {
+    return type.getClassLoader() == component.getClassLoader() && type.getPackageName()
+        .equals(component.getPackageName());
+  }
+
+  private static String internalName(Class<?> type) {
+    return type.isArray() ? type.descriptorString() : type.getName().replace('.', '/');
+  }
+
+  private static final class ClassWriter {
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+
+    private final DataOutputStream constants = new DataOutputStream(pool);
+
+    private final Map<String, Integer> entries = new HashMap<>();
+
+    private int count = 1;
+
+    private final Class<?> component;
+
+    ClassWriter(Class<?> component) {
+      this.component = component;
+    }
+
+    byte[] write(Constructor<?> constructor, List<Field> fields, List<Method> methods)
+        throws IOException {
+      int thisClass = classEntry(internalName(component) + "$$Injector");
+      int superClass = classEntry("java/lang/Object");
+      int function = classEntry("java/util/function/Function");
+      int code = utf8("Code");
+
+      ByteArrayOutputStream init = new ByteArrayOutputStream();
+      init.write(ALOAD_0);
+      init.write(INVOKESPECIAL);
+      writeShort(init, methodEntry("java/lang/Object", "<init>", "()V"));
+      init.write(RETURN);
+
+      ByteArrayOutputStream apply = new ByteArrayOutputStream();
+      apply.write(ALOAD_1);
+      apply.write(CHECKCAST);
+      writeShort(apply, classEntry("[Ljava/lang/Object;"));
+      apply.write(ASTORE_1);
+      int dependency = 0;
+      apply.write(NEW);
+      writeShort(apply, classEntry(internalName(component)));
+      apply.write(DUP);
+      for (Class<?> type : constructor.getParameterTypes()) {
+        load(apply, dependency++, type);
+      }
+      apply.write(INVOKESPECIAL);
+      writeShort(apply, methodEntry(internalName(component), "<init>",
+          MethodType.methodType(void.class, constructor.getParameterTypes())
+              .toMethodDescriptorString()));
+      for (Field field : fields) {
+        apply.write(DUP);
+        load(apply, dependency++, field.getType());
+        apply.write(PUTFIELD);
+        writeShort(apply, memberEntry(9, internalName(field.getDeclaringClass()),
+            field.getName(), field.getType().descriptorString()));
+      }
+      for (Method method : methods) {
+        apply.write(DUP);
+        for (Class<?> type : method.getParameterTypes()) {
+          load(apply, dependency++, type);
+        }
+        apply.write(INVOKEVIRTUAL);
+        writeShort(apply, methodEntry(internalName(method.getDeclaringClass()), method.getName(),
+            MethodType.methodType(method.getReturnType(), method.getParameterTypes())
+                .toMethodDescriptorString()));
+        if (method.getReturnType() == long.class || method.getReturnType() == double.class) {
+          apply.write(POP2);
+        } else if (method.getReturnType() != void.class) {
+          apply.write(POP);
+        }
+      }
+      apply.write(ARETURN);
+      int maxParameters = Stream.concat(Stream.of(constructor), methods.stream())
+          .mapToInt(Executable::getParameterCount).max().orElse(0);
+
+      int initName = utf8("<init>");
+      int initDescriptor = utf8("()V");
+      int applyName = utf8("apply");
+      int applyDescriptor = utf8("(Ljava/lang/Object;)Ljava/lang/Object;");
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      out.writeShort(55);
+      out.writeShort(count);
+      constants.flush();
+      pool.writeTo(out);
+      out.writeShort(ACC_FINAL | ACC_SUPER);
+      out.writeShort(thisClass);
+      out.writeShort(superClass);
+      out.writeShort(1);
+      out.writeShort(function);
+      out.writeShort(0);
+      out.writeShort(2);
+      writeMethod(out, initName, initDescriptor, code, 1, 1, init.toByteArray());
+      writeMethod(out, applyName, applyDescriptor, code, 4 + maxParameters, 2,
+          apply.toByteArray());
+      out.writeShort(0);
+      out.flush();
+      return bytes.toByteArray();
+    }
+
+    private void load(ByteArrayOutputStream code, int index, Class<?> type) throws IOException {
+      code.write(ALOAD_1);
+      if (index <= 5) {
+        code.write(ICONST_0 + index);
+      } else if (index <= Byte.MAX_VALUE) {
+        code.write(BIPUSH);
+        code.write(index);
+      } else {
+        code.write(SIPUSH);
+        writeShort(code, index);
+      }
+      code.write(AALOAD);
+      if (type != Object.class) {
+        code.write(CHECKCAST);
+        writeShort(code, classEntry(internalName(type)));
+      }
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int descriptor, int code,
+        int maxStack, int maxLocals, byte[] bytecode) throws IOException {
+      out.writeShort(ACC_PUBLIC);
+      out.writeShort(name);
+      out.writeShort(descriptor);
+      out.writeShort(1);
+      out.writeShort(code);
+      out.writeInt(12 + bytecode.length);
+      out.writeShort(maxStack);
+      out.writeShort(maxLocals);
+      out.writeInt(bytecode.length);
+      out.write(bytecode);
+      out.writeShort(0);
+      out.writeShort(0);
+    }
+
+    private static void writeShort(ByteArrayOutputStream code, int value) {
+      code.write(value >>> 8);
+      code.write(value);
+    }
+
+    private int utf8(String value) throws IOException {
+      Integer index = entries.get("utf8:" + value);
+      if (index != null) {
+        return index;
+      }
+      constants.writeByte(1);
+      constants.writeUTF(value);
+      entries.put("utf8:" + value, count);
+      return count++;
+    }
+
+    private int classEntry(String name) throws IOException {
+      Integer index = entries.get("class:" + name);
+      if (index != null) {
+        return index;
+      }
+      int utf8 = utf8(name);
+      constants.writeByte(7);
+      constants.writeShort(utf8);
+      entries.put("class:" + name, count);
+      return count++;
+    }
+
+    private int methodEntry(String owner, String name, String descriptor) throws IOException {
+      return memberEntry(10, owner, name, descriptor);
+    }
+
+    private int memberEntry(int tag, String owner, String name, String descriptor)
+        throws IOException {
+      String key = tag + ":" + owner + "." + name + descriptor;
+      Integer index = entries.get(key);
+      if (index != null) {
+        return index;
+      }
+      int ownerClass = classEntry(owner);
+      int nameEntry = utf8(name);
+      int descriptorEntry = utf8(descriptor);
+      constants.writeByte(12);
+      constants.writeShort(nameEntry);
+      constants.writeShort(descriptorEntry);
+      int nameAndType = count++;
+      constants.writeByte(tag);
+      constants.writeShort(ownerClass);
+      constants.writeShort(nameAndType);
+      entries.put(key, count);
+      return count++;
+    }
+  }
+}
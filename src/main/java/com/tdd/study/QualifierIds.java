@@ -0,0 +1,88 @@
+package com.tdd.study;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * dense ids for the qualifiers bound in a config, equal qualifiers (same annotation type and
+ * member values) share an id, 0 stands for no qualifier
+ */
+final class QualifierIds {
+
+  private static final ClassValue<Method[]> members = new ClassValue<>() {
+    @Override
+    protected Method[] computeValue(Class<?> type) {
+      Method[] members = type.getDeclaredMethods();
+      Arrays.sort(members, Comparator.comparing(Method::getName));
+      try {
+        for (Method member : members) {
+          member.setAccessible(true);
+        }
+      } catch (RuntimeException e) {
+        return null;
+      }
+      return members;
+    }
+  };
+
+  private final Map<Object, Integer> ids = new ConcurrentHashMap<>();
+
+  private final AtomicInteger next = new AtomicInteger(1);
+
+  /**
+   * gives the qualifier the next id if it has none yet
+   */
+  int of(Annotation qualifier) {
+    if (qualifier == null) {
+      return 0;
+    }
+    return ids.computeIfAbsent(keyOf(qualifier), key -> next.getAndIncrement());
+  }
+
+  /**
+   * @return the id of the qualifier, or -1 if no component was bound with it
+   */
+  int find(Annotation qualifier) {
+    if (qualifier == null) {
+      return 0;
+    }
+    return ids.getOrDefault(keyOf(qualifier), -1);
+  }
+
+  private static Object keyOf(Annotation qualifier) {
+    Class<? extends Annotation> type = qualifier.annotationType();
+    Method[] members = QualifierIds.members.get(type);
+    if (members == null) {
+      return qualifier;
+    }
+    List<Object> values = new ArrayList<>(members.length + 1);
+    values.add(type);
+    try {
+      for (Method member : members) {
+        values.add(valueOf(member.invoke(qualifier)));
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return qualifier;
+    }
+    return values;
+  }
+
+  private static Object valueOf(Object value) {
+    if (!value.getClass().isArray()) {
+      return value;
+    }
+    List<Object> elements = new ArrayList<>(Array.getLength(value));
+    for (int i = 0; i < Array.getLength(value); i++) {
+      elements.add(valueOf(Array.get(value, i)));
+    }
+    return elements;
+  }
+}
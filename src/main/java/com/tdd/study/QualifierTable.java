@@ -0,0 +1,77 @@
+package com.tdd.study;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * the slots a type is bound to, by qualifier id, sorted by id once built. Most types have only a
+ * few qualifiers and are scanned in order, larger tables are binary searched
+ */
+final class QualifierTable {
+
+  private static final int SCANNED = 8;
+
+  private final int[] ids;
+
+  private final int[] slots;
+
+  private QualifierTable(long[] entries, int size) {
+    Arrays.sort(entries, 0, size);
+    ids = new int[size];
+    slots = new int[size];
+    for (int i = 0; i < size; i++) {
+      ids[i] = (int) (entries[i] >>> 32);
+      slots[i] = (int) entries[i];
+    }
+  }
+
+  /**
+   * the tables of all bound types, built from the slot and qualifier id of each component
+   */
+  static Map<Class<?>, QualifierTable> index(Map<Component, Integer> slots,
+      Map<Component, Integer> qualifierIds) {
+    Map<Class<?>, Builder> builders = new HashMap<>();
+    slots.forEach((component, slot) -> {
+      Integer id = qualifierIds.get(component);
+      if (id != null) {
+        builders.computeIfAbsent(component.type(), type -> new Builder()).put(id, slot);
+      }
+    });
+    Map<Class<?>, QualifierTable> index = new HashMap<>(builders.size() * 4 / 3 + 1);
+    builders.forEach((type, builder) -> index.put(type, builder.build()));
+    return index;
+  }
+
+  int slot(int id) {
+    int[] ids = this.ids;
+    if (ids.length <= SCANNED) {
+      for (int i = 0; i < ids.length; i++) {
+        if (ids[i] == id) {
+          return slots[i];
+        }
+      }
+      return -1;
+    }
+    int i = Arrays.binarySearch(ids, id);
+    return i < 0 ? -1 : slots[i];
+  }
+
+  private static final class Builder {
+
+    private long[] entries = new long[2];
+
+    private int size;
+
+    void put(int id, int slot) {
+      if (size == entries.length) {
+        entries = Arrays.copyOf(entries, size * 2);
+      }
+      entries[size++] = (long) id << 32 | slot & 0xFFFFFFFFL;
+    }
+
+    QualifierTable build() {
+      return new QualifierTable(entries, size);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.tdd.study;
+
+import com.tdd.study.exception.DependencyNotFoundException;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * resolution for callers that must not block, e.g. event loops. Components already constructed
+ * are published on the requesting thread, any other resolution runs on the executor with at most
+ * maxConstructions at a time, up to maxPending more wait for a turn and the rest are rejected
+ * with a RejectedExecutionException
+ */
+public final class ReactiveContext {
+
+  private final Context context;
+
+  private final Executor executor;
+
+  private final int maxConstructions;
+
+  private final int maxPending;
+
+  private final Queue<Resolution<?>> pending = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger admitted = new AtomicInteger();
+
+  private final AtomicInteger running = new AtomicInteger();
+
+  public ReactiveContext(Context context, Executor executor, int maxConstructions,
+      int maxPending) {
+    if (maxConstructions < 1 || maxPending < 0) {
+      throw new IllegalArgumentException();
+    }
+    this.context = context;
+    this.executor = executor;
+    this.maxConstructions = maxConstructions;
+    this.maxPending = maxPending;
+  }
+
+  /**
+   * each subscription resolves the component once, when the subscriber requests it
+   */
+  public <T> Flow.Publisher<T> get(ComponentRef<T> ref) {
+    return subscriber -> subscriber.onSubscribe(new Resolution<>(ref, subscriber));
+  }
+
+  private <T> Optional<T> constructed(ComponentRef<T> ref) {
+    if (ref.isContainer()) {
+      return context.get(ref);
+    }
+    if (context instanceof ComponentContext components) {
+      return components.constructed(ref);
+    }
+    return Optional.empty();
+  }
+
+  private void offload(Resolution<?> resolution) {
+    if (admitted.incrementAndGet() > maxConstructions + maxPending) {
+      admitted.decrementAndGet();
+      resolution.fail(new RejectedExecutionException(
+          "more than " + maxPending + " constructions are waiting"));
+      return;
+    }
+    pending.add(resolution);
+    drain();
+  }
+
+  private void drain() {
+    while (!pending.isEmpty()) {
+      int constructions = running.get();
+      if (constructions >= maxConstructions) {
+        return;
+      }
+      if (!running.compareAndSet(constructions, constructions + 1)) {
+        continue;
+      }
+      Resolution<?> resolution = pending.poll();
+      if (resolution == null) {
+        running.decrementAndGet();
+        continue;
+      }
+      try {
+        executor.execute(() -> {
+          try {
+            resolution.run();
+          } finally {
+            finished();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        finished();
+        resolution.fail(e);
+      }
+    }
+  }
+
+  private void finished() {
+    admitted.decrementAndGet();
+    running.decrementAndGet();
+    drain();
+  }
+
+  private final class Resolution<T> implements Flow.Subscription {
+
+    private final ComponentRef<T> ref;
+
+    private final Flow.Subscriber<? super T> subscriber;
+
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    Resolution(ComponentRef<T> ref, Flow.Subscriber<? super T> subscriber) {
+      this.ref = ref;
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        fail(new IllegalArgumentException("non-positive request " + n));
+        return;
+      }
+      if (!requested.compareAndSet(false, true)) {
+        return;
+      }
+      Optional<T> instance;
+      try {
+        instance = constructed(ref);
+      } catch (RuntimeException e) {
+        fail(e);
+        return;
+      }
+      if (instance.isPresent()) {
+        complete(instance.get());
+      } else {
+        offload(this);
+      }
+    }
+
+    @Override
+    public void cancel() {
+      terminated.set(true);
+    }
+
+    void run() {
+      if (terminated.get()) {
+        return;
+      }
+      T instance;
+      try {
+        instance = context.get(ref).orElseThrow(
+            () -> new DependencyNotFoundException(ref.component()));
+      } catch (RuntimeException | Error e) {
+        fail(e);
+        return;
+      }
+      complete(instance);
+    }
+
+    private void complete(T instance) {
+      if (terminated.compareAndSet(false, true)) {
+        subscriber.onNext(instance);
+        subscriber.onComplete();
+      }
+    }
+
+    void fail(Throwable failure) {
+      if (terminated.compareAndSet(false, true)) {
+        subscriber.onError(failure);
+      }
+    }
+  }
+}
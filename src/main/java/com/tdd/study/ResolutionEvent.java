@@ -0,0 +1,42 @@
+package com.tdd.study;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * one component resolved within a sampled Context.get, the events of a call share the trace id
+ * and form a tree through node and parent (0 for the requested component)
+ */
+@Name("com.tdd.study.Resolution")
+@Label("Component Resolution")
+@Category("Dependency Injection")
+@Description("Resolution of a component within a sampled Context.get call")
+@StackTrace(false)
+final class ResolutionEvent extends Event {
+
+  @Label("Trace")
+  long trace;
+
+  @Label("Node")
+  long node;
+
+  @Label("Parent")
+  long parent;
+
+  @Label("Component")
+  Class<?> component;
+
+  @Label("Qualifier")
+  String qualifier;
+
+  @Label("Scope")
+  String scope;
+
+  @Label("Hit")
+  @Description("Instance already available in its scope")
+  boolean hit;
+}
@@ -0,0 +1,70 @@
+package com.tdd.study;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * decides which Context.get calls are traced and keeps the position in the resolution tree of the
+ * call traced on the current thread
+ */
+final class ResolutionTracer {
+
+  private final double samplingRate;
+
+  private final AtomicLong traces = new AtomicLong();
+
+  private final ThreadLocal<Trace> current = new ThreadLocal<>();
+
+  ResolutionTracer(double samplingRate) {
+    if (samplingRate < 0 || samplingRate > 1) {
+      throw new IllegalArgumentException("sampling rate must be within [0, 1]");
+    }
+    this.samplingRate = samplingRate;
+  }
+
+  Trace current() {
+    return current.get();
+  }
+
+  boolean sample() {
+    return current.get() == null && ThreadLocalRandom.current().nextDouble() < samplingRate;
+  }
+
+  void start() {
+    current.set(new Trace(traces.incrementAndGet()));
+  }
+
+  void stop() {
+    current.remove();
+  }
+
+  static final class Trace {
+
+    final long id;
+
+    private long nodes;
+
+    private long node;
+
+    private Trace(long id) {
+      this.id = id;
+    }
+
+    /**
+     * @return the parent of the entered node, to be passed back to exit
+     */
+    long enter() {
+      long parent = node;
+      node = ++nodes;
+      return parent;
+    }
+
+    long node() {
+      return node;
+    }
+
+    void exit(long parent) {
+      node = parent;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.tdd.study;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.tdd.study.Scan")
+@Label("Component Scan")
+@Category({"Dependency Injection", "Startup"})
+@Description("Derivation of a scanned component's dependencies from its class file")
+@StackTrace(false)
+final class ScanEvent extends Event {
+
+  @Label("Component")
+  Class<?> component;
+
+  @Label("From Class File")
+  @Description("False if the component was left to reflection")
+  boolean fromClassFile;
+
+  @Label("Dependencies")
+  int dependencies;
+}
@@ -0,0 +1,11 @@
+package com.tdd.study;
+
+import java.lang.annotation.Annotation;
+
+record ScopeBinding(Class<? extends Annotation> scope, int slot) implements ScopeContext {
+
+  @Override
+  public ScopedInstances instances(Context context) {
+    return ((ComponentContext) context).instances(scope);
+  }
+}
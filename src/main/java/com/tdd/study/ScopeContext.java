@@ -0,0 +1,16 @@
+package com.tdd.study;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * what a scope knows about one of its bindings, components bound to the same scope get dense
+ * slots starting from 0
+ */
+interface ScopeContext {
+
+  Class<? extends Annotation> scope();
+
+  int slot();
+
+  ScopedInstances instances(Context context);
+}
@@ -3,4 +3,19 @@ package com.tdd.study;
 interface ScopeProvider<T> {
 
   ComponentProvider<T> create(ComponentProvider<?> provider);
+
+  /**
+   * the container binds through this one. Scopes keeping instances per context should override
+   * it and store them in scope.instances(context) at scope.slot(), which constructs each instance
+   * once without locking other components
+   */
+  default ComponentProvider<T> create(ComponentProvider<?> provider, ScopeContext scope) {
+    return create(provider);
+  }
+
+  /**
+   * called when a context is closed, after the instances it stored for the scope were destroyed
+   */
+  default void close(Context context) {
+  }
 }
@@ -0,0 +1,152 @@
+package com.tdd.study;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * the instances of one scope in one context, reads are a volatile load and a slot is only waited
+ * on by threads asking for the same component while it is constructed
+ */
+final class ScopedInstances {
+
+  private final Context context;
+
+  private final AtomicReferenceArray<Object> instances;
+
+  private final AtomicReferenceArray<ComponentProvider<?>> providers;
+
+  private final Deque<Integer> created = new ConcurrentLinkedDeque<>();
+
+  private final AtomicInteger closes = new AtomicInteger();
+
+  ScopedInstances(Context context, int slots) {
+    this.context = context;
+    this.instances = new AtomicReferenceArray<>(slots);
+    this.providers = new AtomicReferenceArray<>(slots);
+  }
+
+  int slots() {
+    return instances.length();
+  }
+
+  Object get(int slot) {
+    Object instance = instances.get(slot);
+    return instance instanceof Pending ? null : instance;
+  }
+
+  /**
+   * the instance is destroyed through the provider when the context is closed, unless it is
+   * removed before
+   */
+  <T> T computeIfAbsent(int slot, ComponentProvider<T> provider) {
+    while (true) {
+      Object instance = instances.get(slot);
+      if (instance instanceof Pending pending) {
+        instance = pending.await();
+      }
+      if (instance != null) {
+        return (T) instance;
+      }
+      int generation = closes.get();
+      Pending pending = new Pending();
+      if (instances.compareAndSet(slot, null, pending)) {
+        return construct(slot, provider, pending, generation);
+      }
+    }
+  }
+
+  /**
+   * an instance still under construction when the context is closed belongs to the closed
+   * context, it is destroyed once built instead of kept
+   */
+  private <T> T construct(int slot, ComponentProvider<T> provider, Pending pending,
+      int generation) {
+    T instance;
+    try {
+      instance = provider.get(context);
+    } catch (RuntimeException | Error e) {
+      instances.set(slot, null);
+      pending.completeExceptionally(e);
+      throw e;
+    }
+    providers.set(slot, provider);
+    instances.set(slot, instance);
+    created.push(slot);
+    pending.complete(instance);
+    if (closes.get() != generation && remove(slot, instance)) {
+      provider.destroy(instance);
+    }
+    return instance;
+  }
+
+  /**
+   * the removed instance is not destroyed, that is left to the caller
+   */
+  Object remove(int slot) {
+    Object instance = instances.get(slot);
+    if (instance == null || instance instanceof Pending || !instances.compareAndSet(slot,
+        instance, null)) {
+      return null;
+    }
+    return instance;
+  }
+
+  boolean remove(int slot, Object instance) {
+    return instances.compareAndSet(slot, instance, null);
+  }
+
+  /**
+   * the replaced instance is not destroyed, that is left to the caller
+   */
+  boolean replace(int slot, Object instance, Object replacement) {
+    return instances.compareAndSet(slot, instance, replacement);
+  }
+
+  /**
+   * through the provider the slot was constructed with
+   */
+  void destroy(int slot, Object instance) {
+    ((ComponentProvider<Object>) providers.get(slot)).destroy(instance);
+  }
+
+  List<RuntimeException> destroy() {
+    closes.incrementAndGet();
+    List<RuntimeException> failures = new ArrayList<>();
+    Integer slot;
+    while ((slot = created.poll()) != null) {
+      Object instance = remove(slot);
+      if (instance == null) {
+        continue;
+      }
+      try {
+        ((ComponentProvider<Object>) providers.get(slot)).destroy(instance);
+      } catch (RuntimeException e) {
+        failures.add(e);
+      }
+    }
+    return failures;
+  }
+
+  private static final class Pending extends CompletableFuture<Object> {
+
+    Object await() {
+      try {
+        return join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException failure) {
+          throw failure;
+        }
+        if (e.getCause() instanceof Error error) {
+          throw error;
+        }
+        throw e;
+      }
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.tdd.study;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.tdd.study.SingletonCreation")
+@Label("Singleton Creation")
+@Category({"Dependency Injection", "Startup"})
+@Description("First construction of a singleton in a context, including its dependencies")
+@StackTrace(false)
+final class SingletonCreationEvent extends Event {
+
+  @Label("Type")
+  Class<?> type;
+}
@@ -2,9 +2,9 @@ package com.tdd.study;
 
 import java.util.List;
 
-class SingletonProvider<T> implements ComponentProvider<T> {
+final class SingletonProvider<T> implements ComponentProvider<T> {
 
-  private T singleton;
+  private int slot = -1;
 
   private ComponentProvider<T> provider;
 
@@ -14,14 +14,36 @@ class SingletonProvider<T> implements ComponentProvider<T> {
 
   @Override
   public T get(Context context) {
-    if (singleton == null) {
-      singleton = provider.get(context);
+    if (!(context instanceof SingletonSlots slots)) {
+      throw new IllegalStateException("singletons are kept by contexts from ContextConfig, not by "
+          + context.getClass().getName());
     }
-    return singleton;
+    return (T) slots.singleton(slot, provider);
+  }
+
+  @Override
+  public void destroy(T instance) {
+    provider.destroy(instance);
   }
 
   @Override
   public List<ComponentRef<?>> getDependencies() {
     return provider.getDependencies();
   }
+
+  int slot() {
+    return slot;
+  }
+
+  ComponentProvider<T> provider() {
+    return provider;
+  }
+
+  boolean isAssigned() {
+    return slot >= 0;
+  }
+
+  void assign(int slot) {
+    this.slot = slot;
+  }
 }
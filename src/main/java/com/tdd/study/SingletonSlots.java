@@ -0,0 +1,9 @@
+package com.tdd.study;
+
+/**
+ * where a context keeps its singletons, SingletonProvider only holds the slot of its component
+ */
+interface SingletonSlots {
+
+  Object singleton(int slot, ComponentProvider<?> provider);
+}
@@ -0,0 +1,22 @@
+package com.tdd.study;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.tdd.study.Validation")
+@Label("Component Validation")
+@Category({"Dependency Injection", "Startup"})
+@Description("Validation of a component's dependencies, including those first validated through it")
+@StackTrace(false)
+final class ValidationEvent extends Event {
+
+  @Label("Component")
+  Class<?> component;
+
+  @Label("Dependencies")
+  int dependencies;
+}
@@ -14,6 +14,14 @@ public class DependencyNotFoundException extends RuntimeException {
     this.component = component;
   }
 
+  /**
+   * the component was requested from the context itself, it is both the component and the
+   * missing dependency
+   */
+  public DependencyNotFoundException(Component component) {
+    this(component, component);
+  }
+
   public Component getDependency() {
     return dependency;
   }
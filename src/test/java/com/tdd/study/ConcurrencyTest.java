@@ -0,0 +1,325 @@
+package com.tdd.study;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Scope;
+import jakarta.inject.Singleton;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * many threads start resolving at once from a fresh context, every round asserts what any
+ * interleaving must give, run on virtual threads too when the runtime has them
+ */
+public class ConcurrencyTest {
+
+  private static final int ROUNDS = 20;
+
+  private static final int RESOLUTIONS = 64;
+
+  private ContextConfig config;
+
+  @BeforeEach
+  public void setUp() {
+    config = new ContextConfig();
+    config.scope(PerContext.class, new PerContextScope());
+    config.bind(SharedDependency.class, SharedDependency.class);
+    config.bind(Shared.class, Shared.class);
+    config.bind(Scoped.class, Scoped.class, new PerContextLiteral());
+    config.bind(Prototype.class, Prototype.class);
+    config.bind(Root.class, Root.class);
+  }
+
+  static Stream<Arguments> threads() {
+    List<Arguments> threads = new ArrayList<>();
+    int processors = Runtime.getRuntime().availableProcessors();
+    threads.add(Arguments.of(Named.<Supplier<ExecutorService>>of("platform",
+        () -> Executors.newFixedThreadPool(Math.max(4, processors * 2)))));
+    virtualThreads().ifPresent(virtual -> threads.add(Arguments.of(Named.of("virtual",
+        virtual))));
+    return threads.stream();
+  }
+
+  private static Optional<Supplier<ExecutorService>> virtualThreads() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      ((ExecutorService) factory.invoke(null)).shutdown();
+      return Optional.of(() -> {
+        try {
+          return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static List<Root> resolveAtOnce(Context context, Supplier<ExecutorService> threads)
+      throws Exception {
+    ExecutorService executor = threads.get();
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Root>> futures = new ArrayList<>();
+      for (int i = 0; i < RESOLUTIONS; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          return context.get(ComponentRef.of(Root.class)).get();
+        }));
+      }
+      start.countDown();
+      List<Root> roots = new ArrayList<>();
+      for (Future<Root> future : futures) {
+        roots.add(future.get(30, TimeUnit.SECONDS));
+      }
+      return roots;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Nested
+  public class ExactlyOnce {
+
+    @ParameterizedTest
+    @MethodSource("com.tdd.study.ConcurrencyTest#threads")
+    public void should_create_singletons_and_scoped_components_once_per_context(
+        Supplier<ExecutorService> threads) throws Exception {
+      for (int round = 0; round < ROUNDS; round++) {
+        Counter.reset();
+        Context context = config.getContext();
+
+        List<Root> roots = resolveAtOnce(context, threads);
+
+        assertEquals(1, Counter.shared.get());
+        assertEquals(1, Counter.sharedDependency.get());
+        assertEquals(1, Counter.scoped.get());
+        assertEquals(RESOLUTIONS * 2, Counter.prototype.get());
+        for (Root root : roots) {
+          assertSame(roots.get(0).shared, root.shared);
+          assertSame(roots.get(0).scoped, root.scoped);
+          assertSame(roots.get(0).shared.dependency, root.prototype.shared.dependency);
+        }
+      }
+    }
+
+    @ParameterizedTest
+    @MethodSource("com.tdd.study.ConcurrencyTest#threads")
+    public void should_create_and_destroy_singletons_once_when_resolved_sync_and_async(
+        Supplier<ExecutorService> threads) throws Exception {
+      ExecutorService executor = threads.get();
+      ExecutorService constructions = threads.get();
+      try {
+        for (int round = 0; round < ROUNDS; round++) {
+          Counter.reset();
+          Context context = config.getContext();
+          CountDownLatch start = new CountDownLatch(1);
+          List<Future<Shared>> futures = new ArrayList<>();
+          for (int i = 0; i < RESOLUTIONS; i++) {
+            boolean async = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+              start.await();
+              return async ? context.getAsync(ComponentRef.of(Shared.class), constructions).join()
+                  : context.get(ComponentRef.of(Shared.class)).get();
+            }));
+          }
+          start.countDown();
+          List<Shared> shared = new ArrayList<>();
+          for (Future<Shared> future : futures) {
+            shared.add(future.get(30, TimeUnit.SECONDS));
+          }
+          context.close();
+
+          assertEquals(1, Counter.shared.get());
+          assertEquals(1, Counter.sharedDependency.get());
+          assertEquals(1, Counter.destroyed.get());
+          for (Shared instance : shared) {
+            assertSame(shared.get(0), instance);
+          }
+        }
+      } finally {
+        executor.shutdown();
+        constructions.shutdown();
+      }
+    }
+  }
+
+  @Nested
+  public class SafePublication {
+
+    @ParameterizedTest
+    @MethodSource("com.tdd.study.ConcurrencyTest#threads")
+    public void should_see_fully_constructed_components_from_every_thread(
+        Supplier<ExecutorService> threads) throws Exception {
+      for (int round = 0; round < ROUNDS; round++) {
+        List<Root> roots = resolveAtOnce(config.getContext(), threads);
+
+        for (Root root : roots) {
+          assertEquals(Shared.VALUES, root.shared.values.length);
+          for (int i = 0; i < Shared.VALUES; i++) {
+            assertEquals(i + 1, root.shared.values[i]);
+          }
+          assertEquals(1, root.scoped.ready);
+          assertEquals(1, root.shared.dependency.ready);
+        }
+      }
+    }
+  }
+
+  static class Counter {
+
+    static final AtomicInteger shared = new AtomicInteger();
+
+    static final AtomicInteger sharedDependency = new AtomicInteger();
+
+    static final AtomicInteger scoped = new AtomicInteger();
+
+    static final AtomicInteger prototype = new AtomicInteger();
+
+    static final AtomicInteger destroyed = new AtomicInteger();
+
+    static void reset() {
+      Stream.of(shared, sharedDependency, scoped, prototype, destroyed)
+          .forEach(counter -> counter.set(0));
+    }
+  }
+
+  @Singleton
+  static class SharedDependency {
+
+    int ready;
+
+    @Inject
+    public SharedDependency() {
+      Counter.sharedDependency.incrementAndGet();
+      Thread.yield();
+      ready = 1;
+    }
+  }
+
+  @Singleton
+  static class Shared {
+
+    static final int VALUES = 16;
+
+    SharedDependency dependency;
+
+    int[] values;
+
+    @Inject
+    public Shared(SharedDependency dependency) {
+      Counter.shared.incrementAndGet();
+      this.dependency = dependency;
+      int[] values = new int[VALUES];
+      for (int i = 0; i < VALUES; i++) {
+        values[i] = i + 1;
+      }
+      this.values = values;
+    }
+
+    @PreDestroy
+    void destroy() {
+      Counter.destroyed.incrementAndGet();
+    }
+  }
+
+  static class Scoped {
+
+    int ready;
+
+    @Inject
+    public Scoped() {
+      Counter.scoped.incrementAndGet();
+      Thread.yield();
+      ready = 1;
+    }
+  }
+
+  static class Prototype {
+
+    Shared shared;
+
+    @Inject
+    public Prototype(Shared shared) {
+      Counter.prototype.incrementAndGet();
+      this.shared = shared;
+    }
+  }
+
+  static class Root {
+
+    Shared shared;
+
+    Scoped scoped;
+
+    Prototype prototype;
+
+    @Inject
+    public Root(Shared shared, Scoped scoped, Provider<Prototype> prototypes) {
+      this.shared = shared;
+      this.scoped = scoped;
+      this.prototype = prototypes.get();
+      prototypes.get();
+    }
+  }
+
+  @Scope
+  @Documented
+  @Retention(RUNTIME)
+  @interface PerContext {
+
+  }
+
+  record PerContextLiteral() implements PerContext {
+
+    @Override
+    public Class<? extends Annotation> annotationType() {
+      return PerContext.class;
+    }
+  }
+
+  static class PerContextScope implements ScopeProvider<Object> {
+
+    /**
+     * outside a container binding there is no slot, instances are kept in a map per context
+     */
+    @Override
+    public ComponentProvider<Object> create(ComponentProvider<?> provider) {
+      Map<Context, Object> instances = new ConcurrentHashMap<>();
+      return context -> instances.computeIfAbsent(context, provider::get);
+    }
+
+    @Override
+    public ComponentProvider<Object> create(ComponentProvider<?> provider, ScopeContext scope) {
+      return context -> scope.instances(context)
+          .computeIfAbsent(scope.slot(), (ComponentProvider<Object>) provider);
+    }
+  }
+}
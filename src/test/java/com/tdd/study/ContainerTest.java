@@ -1,6 +1,23 @@
 package com.tdd.study;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tdd.study.exception.IllegalComponentException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 
 public class ContainerTest {
 
@@ -10,6 +27,249 @@ public class ContainerTest {
 
   @Nested
   public class LifeCycleManagement {
+
+    static final List<String> events = new CopyOnWriteArrayList<>();
+
+    ContextConfig config;
+
+    @BeforeEach
+    public void setup() {
+      config = new ContextConfig();
+      events.clear();
+    }
+
+    static class PostConstructed {
+
+      @Inject
+      Dependency dependency;
+
+      Dependency injected;
+
+      @PostConstruct
+      void init() {
+        injected = dependency;
+      }
+    }
+
+    @Test
+    public void should_call_post_construct_after_injection() {
+      Dependency dependency = new Dependency() {
+      };
+      config.bind(Dependency.class, dependency);
+      config.bind(PostConstructed.class, PostConstructed.class);
+
+      assertSame(dependency,
+          config.getContext().get(ComponentRef.of(PostConstructed.class)).get().injected);
+    }
+
+    static class SuperWithPostConstruct {
+
+      @PostConstruct
+      void superInit() {
+        events.add("super");
+      }
+    }
+
+    static class SubWithPostConstruct extends SuperWithPostConstruct {
+
+      @PostConstruct
+      void subInit() {
+        events.add("sub");
+      }
+    }
+
+    @Test
+    public void should_call_super_post_construct_before_sub_class() {
+      config.bind(SubWithPostConstruct.class, SubWithPostConstruct.class);
+      config.getContext().get(ComponentRef.of(SubWithPostConstruct.class));
+
+      assertEquals(List.of("super", "sub"), events);
+    }
+
+    static class OverrideWithoutPostConstruct extends SuperWithPostConstruct {
+
+      @Override
+      void superInit() {
+      }
+    }
+
+    @Test
+    public void should_not_call_post_construct_if_override_without_annotation() {
+      config.bind(OverrideWithoutPostConstruct.class, OverrideWithoutPostConstruct.class);
+      config.getContext().get(ComponentRef.of(OverrideWithoutPostConstruct.class));
+
+      assertTrue(events.isEmpty());
+    }
+
+    static class PostConstructWithParameter {
+
+      @PostConstruct
+      void init(Dependency dependency) {
+      }
+    }
+
+    @Test
+    public void should_throw_exception_if_lifecycle_method_has_parameters() {
+      assertThrows(IllegalComponentException.class,
+          () -> config.bind(PostConstructWithParameter.class, PostConstructWithParameter.class));
+    }
+
+    @Singleton
+    static class Repository {
+
+      @PreDestroy
+      void close() {
+        events.add("repository");
+      }
+    }
+
+    @Singleton
+    static class Service {
+
+      @Inject
+      Repository repository;
+
+      @PreDestroy
+      void close() {
+        events.add("service");
+      }
+    }
+
+    static class Handler {
+
+      @Inject
+      Service service;
+    }
+
+    @Singleton
+    static class Controller {
+
+      @Inject
+      Handler handler;
+
+      @PreDestroy
+      void close() {
+        events.add("controller");
+      }
+    }
+
+    @Test
+    public void should_destroy_singletons_in_reverse_dependency_order() {
+      config.bind(Repository.class, Repository.class);
+      config.bind(Service.class, Service.class);
+      config.bind(Handler.class, Handler.class);
+      config.bind(Controller.class, Controller.class);
+      Context context = config.getContext();
+      context.get(ComponentRef.of(Controller.class));
+
+      context.close();
+
+      assertEquals(List.of("controller", "service", "repository"), events);
+    }
+
+    @Singleton
+    static class LazyService {
+
+      @Inject
+      Provider<Repository> repository;
+
+      @PreDestroy
+      void close() {
+        events.add("lazy service");
+      }
+    }
+
+    @Test
+    public void should_destroy_singleton_before_dependency_obtained_later_through_provider() {
+      config.bind(Repository.class, Repository.class);
+      config.bind(LazyService.class, LazyService.class);
+      Context context = config.getContext();
+      context.get(ComponentRef.of(LazyService.class)).get().repository.get();
+
+      context.close();
+
+      assertEquals(List.of("lazy service", "repository"), events);
+    }
+
+    @Test
+    public void should_destroy_singleton_before_lazy_dependency_in_parallel() {
+      config.bind(Repository.class, Repository.class);
+      config.bind(LazyService.class, LazyService.class);
+      Context context = config.getContext();
+      context.get(ComponentRef.of(LazyService.class)).get().repository.get();
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+
+      try {
+        context.close(executor);
+      } finally {
+        executor.shutdown();
+      }
+
+      assertEquals(List.of("lazy service", "repository"), events);
+    }
+
+    @Test
+    public void should_destroy_singletons_only_once() {
+      config.bind(Repository.class, Repository.class);
+      Context context = config.getContext();
+      context.get(ComponentRef.of(Repository.class));
+
+      context.close();
+      context.close();
+
+      assertEquals(List.of("repository"), events);
+    }
+
+    @Test
+    public void should_not_destroy_singletons_never_created() {
+      config.bind(Repository.class, Repository.class);
+      config.getContext().close();
+
+      assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void should_destroy_dependents_before_dependencies_in_parallel() {
+      config.bind(Repository.class, Repository.class);
+      config.bind(Service.class, Service.class);
+      config.bind(Handler.class, Handler.class);
+      config.bind(Controller.class, Controller.class);
+      Context context = config.getContext();
+      context.get(ComponentRef.of(Controller.class));
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+
+      try {
+        context.close(executor);
+      } finally {
+        executor.shutdown();
+      }
+
+      assertEquals(List.of("controller", "service", "repository"), events);
+    }
+
+    @Singleton
+    static class FailingDestroy {
+
+      @PreDestroy
+      void close() {
+        throw new IllegalStateException("failing");
+      }
+    }
+
+    @Test
+    public void should_destroy_remaining_singletons_if_one_fails() {
+      config.bind(Repository.class, Repository.class);
+      config.bind(FailingDestroy.class, FailingDestroy.class);
+      Context context = config.getContext();
+      context.get(ComponentRef.of(Repository.class));
+      context.get(ComponentRef.of(FailingDestroy.class));
+
+      IllegalStateException exception = assertThrows(IllegalStateException.class,
+          context::close);
+
+      assertEquals("failing", exception.getMessage());
+      assertEquals(List.of("repository"), events);
+    }
   }
 
 }
@@ -1,9 +1,12 @@
 package com.tdd.study;
 
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static java.util.Arrays.stream;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -20,24 +23,65 @@ import com.tdd.study.ContextTest.TypeBinding.MethodInjectProvider;
 import com.tdd.study.ContextTest.TypeBinding.WithScope.NotSingleton;
 import com.tdd.study.ContextTest.TypeBinding.WithScope.SingletonAnnotated;
 import com.tdd.study.ContextTest.TypeBinding.WithScope.SingletonLiteral;
+import com.tdd.study.ContextTest.WithQualifier.NamedLiteral;
 import com.tdd.study.ContextTest.WithQualifier.SkywalkerLiteral;
 import com.tdd.study.exception.CyclicDependenciesFoundException;
 import com.tdd.study.exception.DependencyNotFoundException;
 import com.tdd.study.exception.IllegalComponentException;
+import com.tdd.study.scan.AbstractComponent;
+import com.tdd.study.scan.NotComponent;
+import com.tdd.study.scan.ScannedConsumer;
+import com.tdd.study.scan.ScannedNamed;
+import com.tdd.study.scan.ScannedRepository;
+import com.tdd.study.scan.ScannedService;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import jakarta.inject.Scope;
 import jakarta.inject.Singleton;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Named;
 import org.junit.jupiter.api.Nested;
@@ -69,6 +113,21 @@ public class ContextTest {
 
     }
 
+    @Test
+    public void should_keep_bound_instance_in_context_if_rebind_afterwards() {
+      Dependency dependency = new Dependency() {
+      };
+      config.bind(Dependency.class, dependency);
+      config.bind(TestComponent.class, ConstructorInject.class);
+      Context context = config.getContext();
+
+      config.bind(Dependency.class, new Dependency() {
+      });
+
+      assertSame(dependency,
+          context.get(ComponentRef.of(TestComponent.class)).get().getDependency());
+    }
+
     @Test
     public void should_retrieve_empty_if_component_is_undefined() {
       Optional<TestComponent> optionalComponent = config.getContext().get(ComponentRef.of(
@@ -244,6 +303,20 @@ public class ContextTest {
             context.get(ComponentRef.of(NotSingleton.class)).get());
       }
 
+      @Test
+      public void should_throw_exception_if_singleton_resolved_from_other_context() {
+        SingletonProvider<NotSingleton> singleton = new SingletonProvider<>(
+            context -> new NotSingleton());
+        Context other = new Context() {
+          @Override
+          public <T> Optional<T> get(ComponentRef<T> ref) {
+            return Optional.empty();
+          }
+        };
+
+        assertThrows(IllegalStateException.class, () -> singleton.get(other));
+      }
+
       @Test
       public void should_bind_component_as_singleton_scoped() {
         config.bind(NotSingleton.class, NotSingleton.class, new SingletonLiteral());
@@ -275,6 +348,24 @@ public class ContextTest {
 
       }
 
+      @Test
+      public void should_share_singleton_bound_with_multi_qualifiers() {
+        config.bind(Dependency.class, SingletonAnnotated.class, new SkywalkerLiteral(),
+            new NamedLiteral("ChosenOne"));
+        Context context = config.getContext();
+
+        assertSame(context.get(ComponentRef.of(Dependency.class, new SkywalkerLiteral())).get(),
+            context.get(ComponentRef.of(Dependency.class, new NamedLiteral("ChosenOne"))).get());
+      }
+
+      @Test
+      public void should_keep_singleton_per_context() {
+        config.bind(SingletonAnnotated.class, SingletonAnnotated.class);
+
+        assertNotSame(config.getContext().get(ComponentRef.of(SingletonAnnotated.class)).get(),
+            config.getContext().get(ComponentRef.of(SingletonAnnotated.class)).get());
+      }
+
       @Test
       public void should_bind_component_annotated_by_customized_scope() {
         config.scope(Pooled.class, PooledProvider::new);
@@ -330,6 +421,337 @@ public class ContextTest {
         }
       }
 
+      @Scope
+      @Documented
+      @Retention(RUNTIME)
+      @interface Cached {
+
+      }
+
+      record CachedLiteral() implements Cached {
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+          return Cached.class;
+        }
+      }
+
+      static class AnotherNotSingleton {
+
+      }
+
+      @Test
+      public void should_rebuild_cached_component_after_expiry() {
+        AtomicLong ticker = new AtomicLong();
+        CacheScope cache = new CacheScope().expireAfterWrite(Duration.ofSeconds(10))
+            .ticker(ticker::get);
+        config.scope(Cached.class, cache);
+        config.bind(NotSingleton.class, NotSingleton.class, new CachedLiteral());
+        Context context = config.getContext();
+
+        NotSingleton cached = context.get(ComponentRef.of(NotSingleton.class)).get();
+        ticker.set(Duration.ofSeconds(9).toNanos());
+        assertSame(cached, context.get(ComponentRef.of(NotSingleton.class)).get());
+        ticker.set(Duration.ofSeconds(10).toNanos());
+        assertNotSame(cached, context.get(ComponentRef.of(NotSingleton.class)).get());
+
+        assertEquals(new CacheScope.Stats(1, 2, 1, 0), cache.stats());
+      }
+
+      @Test
+      public void should_evict_least_recently_used_component_over_maximum_size() {
+        CacheScope cache = new CacheScope().maximumSize(1);
+        config.scope(Cached.class, cache);
+        config.bind(NotSingleton.class, NotSingleton.class, new CachedLiteral());
+        config.bind(AnotherNotSingleton.class, AnotherNotSingleton.class, new CachedLiteral());
+        Context context = config.getContext();
+
+        NotSingleton cached = context.get(ComponentRef.of(NotSingleton.class)).get();
+        context.get(ComponentRef.of(AnotherNotSingleton.class));
+
+        assertNotSame(cached, context.get(ComponentRef.of(NotSingleton.class)).get());
+        assertEquals(2, cache.stats().evictions());
+      }
+
+      @Test
+      public void should_serve_stale_component_while_refreshing() {
+        AtomicLong ticker = new AtomicLong();
+        List<Runnable> refreshes = new ArrayList<>();
+        CacheScope cache = new CacheScope().refreshAfterWrite(Duration.ofSeconds(1), refreshes::add)
+            .ticker(ticker::get);
+        config.scope(Cached.class, cache);
+        config.bind(NotSingleton.class, NotSingleton.class, new CachedLiteral());
+        Context context = config.getContext();
+
+        NotSingleton stale = context.get(ComponentRef.of(NotSingleton.class)).get();
+        ticker.set(Duration.ofSeconds(1).toNanos());
+        assertSame(stale, context.get(ComponentRef.of(NotSingleton.class)).get());
+        assertSame(stale, context.get(ComponentRef.of(NotSingleton.class)).get());
+        assertEquals(1, refreshes.size());
+
+        refreshes.get(0).run();
+
+        assertNotSame(stale, context.get(ComponentRef.of(NotSingleton.class)).get());
+        assertEquals(1, cache.stats().refreshes());
+      }
+
+      @Test
+      public void should_construct_cached_component_once_under_concurrent_misses()
+          throws Exception {
+        CacheScope cache = new CacheScope();
+        config.scope(Cached.class, cache);
+        config.bind(Counted.class, Counted.class, new CachedLiteral());
+        Context context = config.getContext();
+        Counted.constructed.set(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+          CountDownLatch start = new CountDownLatch(1);
+          List<Future<Counted>> resolved = IntStream.range(0, 64).mapToObj(i -> executor.submit(
+              () -> {
+                start.await();
+                return context.get(ComponentRef.of(Counted.class)).get();
+              })).toList();
+          start.countDown();
+
+          Set<Counted> instances = new HashSet<>();
+          for (Future<Counted> future : resolved) {
+            instances.add(future.get(10, TimeUnit.SECONDS));
+          }
+          assertEquals(1, instances.size());
+          assertEquals(1, Counted.constructed.get());
+          assertEquals(new CacheScope.Stats(63, 1, 0, 0), cache.stats());
+        } finally {
+          executor.shutdown();
+        }
+      }
+
+      @Test
+      public void should_destroy_evicted_and_expired_components() {
+        AtomicLong ticker = new AtomicLong();
+        CacheScope cache = new CacheScope().maximumSize(1)
+            .expireAfterWrite(Duration.ofSeconds(10)).ticker(ticker::get);
+        config.scope(Cached.class, cache);
+        config.bind(Closing.class, Closing.class, new CachedLiteral());
+        config.bind(NotSingleton.class, NotSingleton.class, new CachedLiteral());
+        Context context = config.getContext();
+
+        Closing evicted = context.get(ComponentRef.of(Closing.class)).get();
+        context.get(ComponentRef.of(NotSingleton.class));
+        assertTrue(evicted.closed);
+
+        Closing expired = context.get(ComponentRef.of(Closing.class)).get();
+        ticker.set(Duration.ofSeconds(10).toNanos());
+        assertNotSame(expired, context.get(ComponentRef.of(Closing.class)).get());
+        assertTrue(expired.closed);
+      }
+
+      @Test
+      public void should_destroy_component_replaced_by_refresh() {
+        AtomicLong ticker = new AtomicLong();
+        List<Runnable> refreshes = new ArrayList<>();
+        CacheScope cache = new CacheScope().refreshAfterWrite(Duration.ofSeconds(1), refreshes::add)
+            .ticker(ticker::get);
+        config.scope(Cached.class, cache);
+        config.bind(Closing.class, Closing.class, new CachedLiteral());
+        Context context = config.getContext();
+
+        Closing stale = context.get(ComponentRef.of(Closing.class)).get();
+        ticker.set(Duration.ofSeconds(1).toNanos());
+        context.get(ComponentRef.of(Closing.class));
+        refreshes.get(0).run();
+
+        assertTrue(stale.closed);
+        assertFalse(context.get(ComponentRef.of(Closing.class)).get().closed);
+      }
+
+      @Test
+      public void should_refresh_again_after_refresh_failed_with_error() {
+        AtomicLong ticker = new AtomicLong();
+        List<Runnable> refreshes = new ArrayList<>();
+        CacheScope cache = new CacheScope().refreshAfterWrite(Duration.ofSeconds(1), refreshes::add)
+            .ticker(ticker::get);
+        AtomicBoolean failing = new AtomicBoolean();
+        ComponentProvider<Object> cached = cache.create(context -> {
+          if (failing.get()) {
+            throw new StackOverflowError();
+          }
+          return new Object();
+        });
+        Context context = config.getContext();
+
+        cached.get(context);
+        ticker.set(Duration.ofSeconds(1).toNanos());
+        cached.get(context);
+        failing.set(true);
+        assertThrows(StackOverflowError.class, () -> refreshes.get(0).run());
+        failing.set(false);
+        cached.get(context);
+
+        assertEquals(2, refreshes.size());
+      }
+
+      @Test
+      public void should_destroy_component_cached_while_context_closed() throws Exception {
+        config.scope(Cached.class, new CacheScope());
+        config.bind(Blocking.class, Blocking.class, new CachedLiteral());
+        Context context = config.getContext();
+        Blocking.entered = new CountDownLatch(1);
+        Blocking.released = new CountDownLatch(1);
+
+        CompletableFuture<Blocking> loading = CompletableFuture.supplyAsync(
+            () -> context.get(ComponentRef.of(Blocking.class)).get());
+        assertTrue(Blocking.entered.await(10, TimeUnit.SECONDS));
+        context.close();
+        Blocking.released.countDown();
+
+        assertTrue(loading.get(10, TimeUnit.SECONDS).closed);
+      }
+
+      @Test
+      public void should_cache_component_per_context() {
+        config.scope(Cached.class, new CacheScope());
+        config.bind(NotSingleton.class, NotSingleton.class, new CachedLiteral());
+
+        assertNotSame(config.getContext().get(ComponentRef.of(NotSingleton.class)).get(),
+            config.getContext().get(ComponentRef.of(NotSingleton.class)).get());
+      }
+
+      @Test
+      public void should_construct_scoped_component_once_under_concurrent_resolution()
+          throws Exception {
+        config.scope(PerContext.class, new PerContextScope());
+        config.bind(Counted.class, Counted.class, new PerContextLiteral());
+        Context context = config.getContext();
+        Counted.constructed.set(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+          CountDownLatch start = new CountDownLatch(1);
+          List<Future<Counted>> resolved = IntStream.range(0, 64).mapToObj(i -> executor.submit(
+              () -> {
+                start.await();
+                return context.get(ComponentRef.of(Counted.class)).get();
+              })).toList();
+          start.countDown();
+
+          Set<Counted> instances = new HashSet<>();
+          for (Future<Counted> future : resolved) {
+            instances.add(future.get(10, TimeUnit.SECONDS));
+          }
+          assertEquals(1, instances.size());
+          assertEquals(1, Counted.constructed.get());
+        } finally {
+          executor.shutdown();
+        }
+      }
+
+      @Test
+      public void should_give_components_of_custom_scope_dense_slots() {
+        PerContextScope scope = new PerContextScope();
+        config.scope(PerContext.class, scope);
+        config.bind(Counted.class, Counted.class, new PerContextLiteral());
+        config.bind(NotSingleton.class, NotSingleton.class, new PerContextLiteral());
+
+        assertEquals(List.of(0, 1), scope.slots);
+      }
+
+      @Test
+      public void should_destroy_scoped_components_and_notify_scope_when_context_closed() {
+        PerContextScope scope = new PerContextScope();
+        config.scope(PerContext.class, scope);
+        config.bind(Closing.class, Closing.class, new PerContextLiteral());
+        Context context = config.getContext();
+        Closing closing = context.get(ComponentRef.of(Closing.class)).get();
+
+        context.close();
+
+        assertTrue(closing.closed);
+        assertEquals(List.of(context), scope.closed);
+      }
+
+      @Scope
+      @Documented
+      @Retention(RUNTIME)
+      @interface PerContext {
+
+      }
+
+      record PerContextLiteral() implements PerContext {
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+          return PerContext.class;
+        }
+      }
+
+      static class PerContextScope implements ScopeProvider<Object> {
+
+        final List<Integer> slots = new ArrayList<>();
+
+        final List<Context> closed = new ArrayList<>();
+
+        /**
+         * outside a container binding there is no slot, instances are kept in a map per context
+         */
+        @Override
+        public ComponentProvider<Object> create(ComponentProvider<?> provider) {
+          Map<Context, Object> instances = new ConcurrentHashMap<>();
+          return context -> instances.computeIfAbsent(context, provider::get);
+        }
+
+        @Override
+        public ComponentProvider<Object> create(ComponentProvider<?> provider,
+            ScopeContext scope) {
+          slots.add(scope.slot());
+          return context -> scope.instances(context)
+              .computeIfAbsent(scope.slot(), (ComponentProvider<Object>) provider);
+        }
+
+        @Override
+        public void close(Context context) {
+          closed.add(context);
+        }
+      }
+
+      static class Counted {
+
+        static final AtomicInteger constructed = new AtomicInteger();
+
+        @Inject
+        public Counted() {
+          constructed.incrementAndGet();
+          Thread.yield();
+        }
+      }
+
+      static class Closing {
+
+        boolean closed;
+
+        @PreDestroy
+        void close() {
+          closed = true;
+        }
+      }
+
+      static class Blocking extends Closing {
+
+        static CountDownLatch entered;
+
+        static CountDownLatch released;
+
+        @Inject
+        public Blocking() {
+          entered.countDown();
+          try {
+            released.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+
       @Test
       public void should_throw_exception_if_multi_scope_provided() {
         assertThrows(IllegalComponentException.class,
@@ -394,111 +816,1178 @@ public class ContextTest {
   }
 
   @Nested
-  public class DependencyValidation {
-
-    static class ComponentWithInjectConstructor implements TestComponent {
+  public class ConcurrentBinding {
 
-      private Dependency dependency;
+    static final int COMPONENTS = 1000;
 
-      @Inject
-      public ComponentWithInjectConstructor(Dependency dependency) {
-        this.dependency = dependency;
+    @Test
+    public void should_bind_components_from_multi_threads() throws Exception {
+      ExecutorService modules = Executors.newFixedThreadPool(8);
+      try {
+        List<Future<?>> bindings = IntStream.range(0, COMPONENTS)
+            .mapToObj(i -> modules.submit(() -> {
+              config.bind(Dependency.class, new Dependency() {
+              }, new NamedLiteral(String.valueOf(i)));
+              config.bind(ConstructorInject.class, ConstructorInject.class,
+                  new NamedLiteral(String.valueOf(i)));
+            })).collect(Collectors.toList());
+        for (Future<?> binding : bindings) {
+          binding.get();
+        }
+      } finally {
+        modules.shutdown();
       }
+      config.bind(Dependency.class, new Dependency() {
+      });
 
-      public Dependency getDependency() {
-        return dependency;
-      }
+      Context context = config.getContext();
 
+      assertTrue(IntStream.range(0, COMPONENTS).allMatch(i -> context.get(
+          ComponentRef.of(ConstructorInject.class, new NamedLiteral(String.valueOf(i))))
+          .isPresent()));
+      assertEquals(COMPONENTS, IntStream.range(0, COMPONENTS).mapToObj(i -> context.get(
+          ComponentRef.of(Dependency.class, new NamedLiteral(String.valueOf(i)))).get())
+          .distinct().count());
     }
+  }
 
-    // transitive_dependency also included
-    static Stream<Arguments> componentMissDependencyClassProvider() {
-      return Stream.of(Arguments.of(Named.of("Constructor Inject", ConstructorInject.class)),
-          Arguments.of(Named.of("Field Inject", FieldInject.class)),
-          Arguments.of(Named.of("Method Inject", MethodInject.class)),
-          Arguments.of(Named.of("Constructor Inject Provider", ConstructorInjectProvider.class)),
-          Arguments.of(Named.of("Field Inject Provider", FieldInjectProvider.class)),
-          Arguments.of(Named.of("Method Inject Provider", MethodInjectProvider.class)),
-          Arguments.of(Named.of("Missing dependency scoped", DependencyScoped.class)),
-          Arguments.of(
-              Named.of("Missing dependency provider scoped", DependencyProviderScoped.class)));
+  @Nested
+  public class ComponentScanning {
 
-    }
+    @Test
+    public void should_bind_scanned_injectable_components() {
+      config.scan("com.tdd.study.scan");
+      Context context = config.getContext();
 
-    @ParameterizedTest
-    @MethodSource("componentMissDependencyClassProvider")
-    public void should_throw_exception_if_dependency_not_found(
-        Class<? extends TestComponent> componentType) {
-      config.bind(TestComponent.class, componentType);
+      ScannedService service = context.get(ComponentRef.of(ScannedService.class)).get();
 
-      DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class,
-          () -> config.getContext());
-      assertEquals(TestComponent.class, exception.getComponent().type());
-      assertEquals(Dependency.class, exception.getDependency().type());
+      assertSame(context.get(ComponentRef.of(ScannedRepository.class)).get(),
+          service.getRepository());
+    }
+
+    @Test
+    public void should_bind_scanned_component_with_qualifier() {
+      config.scan("com.tdd.study.scan");
 
+      assertTrue(config.getContext()
+          .get(ComponentRef.of(ScannedNamed.class, new NamedLiteral("scanned"))).isPresent());
     }
 
-    static class DependencyDependOnComponent implements Dependency {
+    @Test
+    public void should_inject_qualified_and_provider_dependencies_of_scanned_component() {
+      config.scan("com.tdd.study.scan");
+      Context context = config.getContext();
 
-      private TestComponent component;
+      ScannedConsumer consumer = context.get(ComponentRef.of(ScannedConsumer.class)).get();
 
-      @Inject
-      public DependencyDependOnComponent(TestComponent component) {
-        this.component = component;
-      }
+      assertNotNull(consumer.named);
+      assertNotNull(consumer.service.get().getRepository());
     }
 
-    // A->B, B->A
     @Test
-    public void should_throw_exception_if_cyclic_dependencies_found() {
-      config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
-      config.bind(Dependency.class, DependencyDependOnComponent.class);
+    public void should_not_bind_class_without_injection_point() {
+      config.scan("com.tdd.study.scan");
+      Context context = config.getContext();
 
-      CyclicDependenciesFoundException exception = assertThrows(
-          CyclicDependenciesFoundException.class,
-          () -> config.getContext());
+      assertTrue(context.get(ComponentRef.of(NotComponent.class)).isEmpty());
+      assertTrue(context.get(ComponentRef.of(AbstractComponent.class)).isEmpty());
+    }
 
-      List<Class<?>> components = exception.getComponents();
+    @Test
+    public void should_skip_annotation_missing_from_class_path() {
+      ClassLoader withoutNamed = new ClassLoader(getClass().getClassLoader()) {
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+          if (name.equals(jakarta.inject.Named.class.getName())) {
+            throw new ClassNotFoundException(name);
+          }
+          return super.loadClass(name, resolve);
+        }
+      };
 
-      assertTrue(components.contains(TestComponent.class));
-      assertTrue(components.contains(Dependency.class));
+      List<Class<?>> scanned = new ComponentScanner(withoutNamed).scan("com.tdd.study.scan")
+          .stream().<Class<?>>map(ComponentScanner.Candidate::type).toList();
 
+      assertFalse(scanned.contains(ScannedNamed.class));
+      assertTrue(scanned.contains(ScannedService.class));
     }
 
-    static class DependencyDependOnAnotherDependency implements Dependency {
+    @Test
+    public void should_close_jar_opened_for_scanning() throws Exception {
+      Path jar = Files.createTempFile("scanned", ".jar");
+      String entry = ScannedRepository.class.getName().replace('.', '/') + ".class";
+      try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+          InputStream in = getClass().getClassLoader().getResourceAsStream(entry)) {
+        out.putNextEntry(new JarEntry(entry));
+        in.transferTo(out);
+      }
+      try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()},
+          getClass().getClassLoader())) {
+        assertFalse(new ComponentScanner(loader).scan("com.tdd.study.scan").isEmpty());
+
+        assertThrows(FileSystemNotFoundException.class,
+            () -> FileSystems.getFileSystem(URI.create("jar:" + jar.toUri())));
+      } finally {
+        Files.delete(jar);
+      }
+    }
+  }
 
-      private AnotherDependency anotherDependency;
+  @Nested
+  public class CompactMetadata {
 
-      @Inject
-      public DependencyDependOnAnotherDependency(AnotherDependency anotherDependency) {
-        this.anotherDependency = anotherDependency;
-      }
+    @BeforeEach
+    public void setUp() {
+      config.compact();
     }
 
-    interface AnotherDependency {
+    @Test
+    public void should_resolve_components_bound_in_compact_mode() {
+      Dependency dependency = new Dependency() {
+      };
+      config.bind(Dependency.class, dependency);
+      config.bind(TestComponent.class, ConstructorInject.class);
+      config.bind(FieldInject.class, FieldInject.class);
+
+      Context context = config.getContext();
 
+      assertSame(dependency, context.get(ComponentRef.of(TestComponent.class)).get()
+          .getDependency());
+      assertSame(dependency, context.get(ComponentRef.of(FieldInject.class)).get()
+          .getDependency());
     }
 
-    static class AnotherDependencyDependOnComponent implements AnotherDependency {
+    @Test
+    public void should_share_equal_refs_and_slots_between_injection_points() {
+      MetadataTable table = new MetadataTable(component -> 0, true);
 
-      private TestComponent component;
+      ComponentRef<?>[] refs = table.intern(
+          new ComponentRef<?>[]{ComponentRef.of(Dependency.class)});
 
-      @Inject
-      public AnotherDependencyDependOnComponent(TestComponent component) {
-        this.component = component;
-      }
+      assertSame(refs, table.intern(new ComponentRef<?>[]{ComponentRef.of(Dependency.class)}));
+      assertSame(table.intern(new int[]{1, 2}), table.intern(new int[]{1, 2}));
     }
 
-    // A->B, B->C, C->A
     @Test
-    public void should_throw_exception_if_transitive_cyclic_dependencies_found() {
-      config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
-      config.bind(Dependency.class, DependencyDependOnAnotherDependency.class);
-      config.bind(AnotherDependency.class, AnotherDependencyDependOnComponent.class);
+    public void should_link_equal_refs_to_one_canonical_ref_with_its_slot() {
+      MetadataTable table = new MetadataTable(component -> 3, false);
 
-      CyclicDependenciesFoundException exception = assertThrows(
-          CyclicDependenciesFoundException.class,
-          () -> config.getContext());
+      ComponentRef<Dependency> ref = table.canonical(ComponentRef.of(Dependency.class));
+
+      assertSame(ref, table.canonical(ComponentRef.of(Dependency.class)));
+      assertSame(ref, table.canonical(ref));
+      assertEquals(3, ref.slot());
+      assertEquals(ComponentRef.of(Dependency.class), ref);
+    }
+  }
+
+  @Nested
+  public class LazyBinding {
+
+    @BeforeEach
+    public void setUp() {
+      config.lazy();
+    }
+
+    static class ComponentWithNoInjectNorDefaultConstructor implements TestComponent {
+
+      public ComponentWithNoInjectNorDefaultConstructor(Dependency dependency) {
+      }
+    }
+
+    @Test
+    public void should_not_reflect_on_illegal_component_until_resolved() {
+      config.bind(TestComponent.class, ComponentWithNoInjectNorDefaultConstructor.class);
+      Context context = config.getContext();
+
+      assertThrows(IllegalComponentException.class,
+          () -> context.get(ComponentRef.of(TestComponent.class)));
+    }
+
+    @Test
+    public void should_throw_exception_on_resolution_if_dependency_not_found() {
+      config.bind(TestComponent.class, ConstructorInject.class);
+      config.bind(NotSingleton.class, NotSingleton.class);
+      Context context = config.getContext();
+
+      assertTrue(context.get(ComponentRef.of(NotSingleton.class)).isPresent());
+      DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class,
+          () -> context.get(ComponentRef.of(TestComponent.class)));
+      assertEquals(Dependency.class, exception.getDependency().type());
+    }
+
+    @Test
+    public void should_throw_exception_on_resolution_if_cyclic_dependencies_found() {
+      config.bind(TestComponent.class, DependencyValidation.ComponentWithInjectConstructor.class);
+      config.bind(Dependency.class, DependencyValidation.DependencyDependOnComponent.class);
+      Context context = config.getContext();
+
+      assertThrows(CyclicDependenciesFoundException.class,
+          () -> context.get(ComponentRef.of(TestComponent.class)));
+    }
+
+    @Test
+    public void should_see_components_bound_after_previous_context() {
+      config.bind(NotSingleton.class, NotSingleton.class);
+      Context before = config.getContext();
+      TestComponent instance = new TestComponent() {
+      };
+      config.bind(TestComponent.class, instance);
+
+      assertTrue(before.get(ComponentRef.of(TestComponent.class)).isEmpty());
+      assertSame(instance, config.getContext().get(ComponentRef.of(TestComponent.class)).get());
+    }
+
+    @Test
+    public void should_keep_singletons_per_context_sharing_bindings() {
+      config.bind(SingletonAnnotated.class, SingletonAnnotated.class);
+      Context first = config.getContext();
+      Context second = config.getContext();
+
+      assertNotSame(first.get(ComponentRef.of(SingletonAnnotated.class)).get(),
+          second.get(ComponentRef.of(SingletonAnnotated.class)).get());
+    }
+
+    @Test
+    public void should_resolve_component_with_dependencies() {
+      Dependency dependency = new Dependency() {
+      };
+      config.bind(Dependency.class, dependency);
+      config.bind(TestComponent.class, FieldInject.class, new SingletonLiteral());
+      Context context = config.getContext();
+
+      TestComponent component = context.get(ComponentRef.of(TestComponent.class)).get();
+
+      assertSame(dependency, component.getDependency());
+      assertSame(component, context.get(ComponentRef.of(TestComponent.class)).get());
+    }
+  }
+
+  @Nested
+  public class StablePrototypes {
+
+    @Test
+    public void should_create_new_prototype_with_same_constant_and_singleton_dependencies() {
+      Dependency dependency = new Dependency() {
+      };
+      config.bind(Dependency.class, dependency);
+      config.bind(SingletonDependency.class, SingletonDependency.class);
+      config.bind(StablePrototype.class, StablePrototype.class);
+      Context context = config.getContext();
+
+      List<StablePrototype> prototypes = IntStream.range(0, 20)
+          .mapToObj(i -> context.get(ComponentRef.of(StablePrototype.class)).get()).toList();
+
+      assertEquals(prototypes.size(), new HashSet<>(prototypes).size());
+      for (StablePrototype prototype : prototypes) {
+        assertSame(dependency, prototype.dependency);
+        assertSame(prototypes.get(0).singleton, prototype.singleton);
+        assertSame(dependency, prototype.installed);
+      }
+    }
+
+    @Test
+    public void should_not_inject_singleton_destroyed_by_close() {
+      config.bind(Dependency.class, new Dependency() {
+      });
+      config.bind(SingletonDependency.class, SingletonDependency.class);
+      config.bind(StablePrototype.class, StablePrototype.class);
+      Context context = config.getContext();
+      StablePrototype before = context.get(ComponentRef.of(StablePrototype.class)).get();
+
+      context.close();
+
+      StablePrototype after = context.get(ComponentRef.of(StablePrototype.class)).get();
+      assertNotSame(before.singleton, after.singleton);
+      assertSame(after.singleton, context.get(ComponentRef.of(SingletonDependency.class)).get());
+    }
+
+    @Test
+    public void should_resolve_prototype_dependencies_of_prototype_every_time() {
+      config.bind(SingletonDependency.class, SingletonDependency.class);
+      config.bind(PrototypeDependency.class, PrototypeDependency.class);
+      config.bind(UnstablePrototype.class, UnstablePrototype.class);
+      Context context = config.getContext();
+
+      UnstablePrototype first = context.get(ComponentRef.of(UnstablePrototype.class)).get();
+      UnstablePrototype second = context.get(ComponentRef.of(UnstablePrototype.class)).get();
+
+      assertNotSame(first.dependency, second.dependency);
+      assertSame(first.dependency.singleton, second.dependency.singleton);
+    }
+
+    @Singleton
+    static class SingletonDependency {
+
+    }
+
+    static class StablePrototype {
+
+      Dependency dependency;
+
+      SingletonDependency singleton;
+
+      @Inject
+      Dependency installed;
+
+      @Inject
+      public StablePrototype(Dependency dependency, SingletonDependency singleton) {
+        this.dependency = dependency;
+        this.singleton = singleton;
+      }
+    }
+
+    static class PrototypeDependency {
+
+      SingletonDependency singleton;
+
+      @Inject
+      public PrototypeDependency(SingletonDependency singleton) {
+        this.singleton = singleton;
+      }
+    }
+
+    static class UnstablePrototype {
+
+      PrototypeDependency dependency;
+
+      @Inject
+      public UnstablePrototype(PrototypeDependency dependency) {
+        this.dependency = dependency;
+      }
+    }
+  }
+
+  @Nested
+  public class ConcurrentSingletons {
+
+    ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+      executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+      executor.shutdownNow();
+    }
+
+    @Test
+    public void should_create_unrelated_singletons_in_parallel() throws Exception {
+      Barrier.barrier = new CyclicBarrier(2);
+      config.bind(BarrierA.class, BarrierA.class);
+      config.bind(BarrierB.class, BarrierB.class);
+      Context context = config.getContext();
+
+      Future<BarrierA> a = executor.submit(
+          () -> context.get(ComponentRef.of(BarrierA.class)).get());
+      Future<BarrierB> b = executor.submit(
+          () -> context.get(ComponentRef.of(BarrierB.class)).get());
+
+      assertNotNull(a.get(10, TimeUnit.SECONDS));
+      assertNotNull(b.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void should_wait_for_singleton_created_by_another_thread() throws Exception {
+      Barrier.barrier = new CyclicBarrier(2);
+      config.bind(BarrierA.class, BarrierA.class);
+      Context context = config.getContext();
+
+      Future<BarrierA> created = executor.submit(
+          () -> context.get(ComponentRef.of(BarrierA.class)).get());
+      Future<BarrierA> waited = executor.submit(() -> {
+        Barrier.barrier.await(10, TimeUnit.SECONDS);
+        return context.get(ComponentRef.of(BarrierA.class)).get();
+      });
+
+      assertSame(created.get(10, TimeUnit.SECONDS), waited.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void should_throw_exception_if_threads_wait_for_each_others_singletons() {
+      Crossing.started = new CountDownLatch(1);
+      config.bind(CrossingA.class, CrossingA.class);
+      config.bind(CrossingB.class, CrossingB.class);
+      Context context = config.getContext();
+
+      Future<CrossingA> a = executor.submit(
+          () -> context.get(ComponentRef.of(CrossingA.class)).get());
+      Future<CrossingB> b = executor.submit(
+          () -> context.get(ComponentRef.of(CrossingB.class)).get());
+
+      for (Future<?> future : List.of(a, b)) {
+        ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof CyclicDependenciesFoundException);
+      }
+    }
+
+    @Test
+    public void should_throw_exception_if_thread_waits_for_async_singleton_waiting_for_it()
+        throws Exception {
+      Crossing.started = new CountDownLatch(1);
+      config.bind(CrossingA.class, CrossingA.class);
+      config.bind(CrossingB.class, CrossingB.class);
+      Context context = config.getContext();
+
+      Future<CrossingA> a = executor.submit(
+          () -> context.get(ComponentRef.of(CrossingA.class)).get());
+      CompletableFuture<CrossingB> b = context.getAsync(ComponentRef.of(CrossingB.class),
+          command -> new Thread(command).start());
+
+      ExecutionException exception = assertThrows(ExecutionException.class,
+          () -> a.get(10, TimeUnit.SECONDS));
+      assertTrue(exception.getCause() instanceof CyclicDependenciesFoundException);
+      assertThrows(ExecutionException.class, () -> b.get(10, TimeUnit.SECONDS));
+    }
+
+    static class Barrier {
+
+      static CyclicBarrier barrier;
+
+      static void await() {
+        try {
+          barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+
+    @Singleton
+    static class BarrierA {
+
+      @Inject
+      public BarrierA() {
+        Barrier.await();
+      }
+    }
+
+    @Singleton
+    static class BarrierB {
+
+      @Inject
+      public BarrierB() {
+        Barrier.await();
+      }
+    }
+
+    static class Crossing {
+
+      static CountDownLatch started;
+
+      static void await() {
+        try {
+          started.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+
+    @Singleton
+    static class CrossingA {
+
+      @Inject
+      public CrossingA(Provider<CrossingB> b) {
+        Crossing.await();
+        b.get();
+      }
+    }
+
+    @Singleton
+    static class CrossingB {
+
+      @Inject
+      public CrossingB(Provider<CrossingA> a) {
+        Crossing.started.countDown();
+        a.get();
+      }
+    }
+  }
+
+  @Nested
+  public class ReactiveResolution {
+
+    List<Runnable> tasks = new ArrayList<>();
+
+    @Test
+    public void should_publish_constructed_singleton_without_offloading() {
+      config.bind(SingletonAnnotated.class, SingletonAnnotated.class);
+      Context context = config.getContext();
+      SingletonAnnotated singleton = context.get(ComponentRef.of(SingletonAnnotated.class)).get();
+
+      Collecting<SingletonAnnotated> subscriber = new Collecting<>();
+      new ReactiveContext(context, tasks::add, 1, 0)
+          .get(ComponentRef.of(SingletonAnnotated.class)).subscribe(subscriber);
+
+      assertEquals(List.of(singleton), subscriber.items);
+      assertTrue(subscriber.completed);
+      assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void should_construct_cold_component_on_executor() {
+      config.bind(SingletonAnnotated.class, SingletonAnnotated.class);
+      Context context = config.getContext();
+
+      Collecting<SingletonAnnotated> subscriber = new Collecting<>();
+      new ReactiveContext(context, tasks::add, 1, 0)
+          .get(ComponentRef.of(SingletonAnnotated.class)).subscribe(subscriber);
+
+      assertTrue(subscriber.items.isEmpty());
+      assertEquals(1, tasks.size());
+
+      tasks.get(0).run();
+
+      assertEquals(List.of(context.get(ComponentRef.of(SingletonAnnotated.class)).get()),
+          subscriber.items);
+      assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void should_bound_cold_constructions_and_reject_over_pending_limit() {
+      config.bind(NotSingleton.class, NotSingleton.class);
+      ReactiveContext reactive = new ReactiveContext(config.getContext(), tasks::add, 1, 1);
+
+      List<Collecting<NotSingleton>> subscribers = IntStream.range(0, 3)
+          .mapToObj(i -> new Collecting<NotSingleton>()).toList();
+      subscribers.forEach(subscriber -> reactive.get(ComponentRef.of(NotSingleton.class))
+          .subscribe(subscriber));
+
+      assertEquals(1, tasks.size());
+      assertTrue(subscribers.get(2).error instanceof RejectedExecutionException);
+
+      tasks.get(0).run();
+
+      assertEquals(1, subscribers.get(0).items.size());
+      assertEquals(2, tasks.size());
+
+      tasks.get(1).run();
+
+      assertEquals(1, subscribers.get(1).items.size());
+    }
+
+    @Test
+    public void should_publish_error_if_component_not_bound() {
+      Collecting<NotSingleton> subscriber = new Collecting<>();
+      new ReactiveContext(config.getContext(), Runnable::run, 1, 0)
+          .get(ComponentRef.of(NotSingleton.class)).subscribe(subscriber);
+
+      assertTrue(subscriber.error instanceof DependencyNotFoundException);
+    }
+
+    @Test
+    public void should_not_construct_component_if_subscription_cancelled() {
+      config.bind(NotSingleton.class, NotSingleton.class);
+      Collecting<NotSingleton> subscriber = new Collecting<>();
+      new ReactiveContext(config.getContext(), tasks::add, 1, 0)
+          .get(ComponentRef.of(NotSingleton.class)).subscribe(subscriber);
+
+      subscriber.subscription.cancel();
+      tasks.get(0).run();
+
+      assertTrue(subscriber.items.isEmpty());
+      assertFalse(subscriber.completed);
+    }
+
+    static class Collecting<T> implements Flow.Subscriber<T> {
+
+      final List<T> items = new ArrayList<>();
+
+      Flow.Subscription subscription;
+
+      Throwable error;
+
+      boolean completed;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+      }
+
+      @Override
+      public void onNext(T item) {
+        items.add(item);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        error = throwable;
+      }
+
+      @Override
+      public void onComplete() {
+        completed = true;
+      }
+    }
+  }
+
+  @Nested
+  public class AsyncResolution {
+
+    ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+      executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+      executor.shutdown();
+    }
+
+    @Test
+    public void should_resolve_component_with_dependencies_asynchronously() throws Exception {
+      Dependency dependency = new Dependency() {
+      };
+      config.bind(Dependency.class, dependency);
+      config.bind(TestComponent.class, ConstructorInject.class);
+
+      TestComponent component = config.getContext()
+          .getAsync(ComponentRef.of(TestComponent.class), executor).get(1, TimeUnit.SECONDS);
+
+      assertSame(dependency, component.getDependency());
+    }
+
+    @Test
+    public void should_memoize_singleton_futures() throws Exception {
+      config.bind(SingletonAnnotated.class, SingletonAnnotated.class);
+      Context context = config.getContext();
+
+      CompletableFuture<SingletonAnnotated> first = context.getAsync(
+          ComponentRef.of(SingletonAnnotated.class), executor);
+      CompletableFuture<SingletonAnnotated> second = context.getAsync(
+          ComponentRef.of(SingletonAnnotated.class), executor);
+
+      assertSame(first.get(1, TimeUnit.SECONDS), second.get(1, TimeUnit.SECONDS));
+      assertSame(first.get(), context.get(ComponentRef.of(SingletonAnnotated.class)).get());
+    }
+
+    static final CountDownLatch bothStarted = new CountDownLatch(2);
+
+    static class SlowDependency implements Dependency {
+
+      public SlowDependency() throws InterruptedException {
+        bothStarted.countDown();
+        if (!bothStarted.await(1, TimeUnit.SECONDS)) {
+          throw new IllegalStateException("dependencies constructed one by one");
+        }
+      }
+    }
+
+    static class SlowComponent implements TestComponent {
+
+      @Inject
+      public SlowComponent(@jakarta.inject.Named("first") Dependency first,
+          @jakarta.inject.Named("second") Dependency second) {
+      }
+    }
+
+    @Test
+    public void should_construct_independent_dependencies_concurrently() {
+      config.bind(Dependency.class, SlowDependency.class, new NamedLiteral("first"));
+      config.bind(Dependency.class, SlowDependency.class, new NamedLiteral("second"));
+      config.bind(TestComponent.class, SlowComponent.class);
+
+      assertDoesNotThrow(() -> config.getContext()
+          .getAsync(ComponentRef.of(TestComponent.class), executor).get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void should_complete_exceptionally_if_component_not_bound() {
+      ExecutionException exception = assertThrows(ExecutionException.class,
+          () -> config.getContext().getAsync(ComponentRef.of(TestComponent.class), executor)
+              .get(1, TimeUnit.SECONDS));
+
+      DependencyNotFoundException notFound = (DependencyNotFoundException) exception.getCause();
+      assertEquals(TestComponent.class, notFound.getComponent().type());
+      assertEquals(TestComponent.class, notFound.getDependency().type());
+    }
+
+    @Test
+    public void should_complete_exceptionally_with_component_missing_dependency() {
+      config.lazy();
+      config.bind(TestComponent.class, ConstructorInject.class);
+
+      ExecutionException exception = assertThrows(ExecutionException.class,
+          () -> config.getContext().getAsync(ComponentRef.of(TestComponent.class), executor)
+              .get(1, TimeUnit.SECONDS));
+
+      DependencyNotFoundException notFound = (DependencyNotFoundException) exception.getCause();
+      assertEquals(TestComponent.class, notFound.getComponent().type());
+      assertEquals(Dependency.class, notFound.getDependency().type());
+    }
+
+    @Test
+    public void should_record_and_destroy_async_singleton_like_sync_one() throws Exception {
+      config.bind(SingletonAnnotated.class, SingletonAnnotated.class);
+      Context context = config.getContext();
+      List<SingletonAnnotated> created = new ArrayList<>();
+
+      List<RecordedEvent> events = record(() -> {
+        try {
+          created.add(context.getAsync(ComponentRef.of(SingletonAnnotated.class), executor)
+              .get(1, TimeUnit.SECONDS));
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }, "com.tdd.study.SingletonCreation");
+      context.close();
+
+      assertEquals(1, events.size());
+      assertNotSame(created.get(0), context.getAsync(ComponentRef.of(SingletonAnnotated.class),
+          executor).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void should_complete_exceptionally_if_cyclic_dependencies_found_lazily() {
+      config.lazy();
+      config.bind(TestComponent.class, DependencyValidation.ComponentWithInjectConstructor.class);
+      config.bind(Dependency.class, DependencyValidation.DependencyDependOnComponent.class);
+
+      ExecutionException exception = assertThrows(ExecutionException.class,
+          () -> config.getContext().getAsync(ComponentRef.of(TestComponent.class), executor)
+              .get(1, TimeUnit.SECONDS));
+
+      assertTrue(exception.getCause() instanceof CyclicDependenciesFoundException);
+    }
+  }
+
+  @Nested
+  public class AssistedInjection {
+
+    static class Tenant {
+
+      final String id;
+
+      final Dependency dependency;
+
+      @Inject
+      public Tenant(@Assisted String id, Dependency dependency) {
+        this.id = id;
+        this.dependency = dependency;
+      }
+    }
+
+    @Singleton
+    static class KeyedTenant extends Tenant {
+
+      @Inject
+      public KeyedTenant(@Assisted String id, Dependency dependency) {
+        super(id, dependency);
+      }
+    }
+
+    @Singleton
+    static class ClosingTenant extends Tenant {
+
+      boolean closed;
+
+      @Inject
+      public ClosingTenant(@Assisted String id, Dependency dependency) {
+        super(id, dependency);
+      }
+
+      @PreDestroy
+      void close() {
+        closed = true;
+      }
+    }
+
+    @Singleton
+    static class NestedTenant extends Tenant {
+
+      final Tenant parent;
+
+      @Inject
+      public NestedTenant(@Assisted String id, Dependency dependency, Factory<Tenant> tenants) {
+        super(id, dependency);
+        this.parent = id.contains("/") ? tenants.create(id.substring(0, id.lastIndexOf('/')))
+            : null;
+      }
+    }
+
+    @Scope
+    @Documented
+    @Retention(RUNTIME)
+    @interface PerTenant {
+
+    }
+
+    @PerTenant
+    static class PerTenantTenant extends Tenant {
+
+      @Inject
+      public PerTenantTenant(@Assisted String id, Dependency dependency) {
+        super(id, dependency);
+      }
+    }
+
+    static class TenantRegistry {
+
+      @Inject
+      Factory<Tenant> tenants;
+    }
+
+    static class TenantConsumer {
+
+      @Inject
+      Tenant tenant;
+    }
+
+    Dependency dependency = new Dependency() {
+    };
+
+    @BeforeEach
+    public void setUp() {
+      config.bind(Dependency.class, dependency);
+    }
+
+    @Test
+    public void should_create_component_with_assisted_arguments_and_dependencies() {
+      config.bindFactory(Tenant.class, Tenant.class);
+
+      Factory<Tenant> factory = config.getContext().get(new ComponentRef<Factory<Tenant>>() {
+      }).get();
+      Tenant tenant = factory.create("tenant-1");
+
+      assertEquals("tenant-1", tenant.id);
+      assertSame(dependency, tenant.dependency);
+      assertNotSame(tenant, factory.create("tenant-1"));
+    }
+
+    @Test
+    public void should_inject_factory_into_component() {
+      config.bindFactory(Tenant.class, Tenant.class);
+      config.bind(TenantRegistry.class, TenantRegistry.class);
+
+      TenantRegistry registry = config.getContext().get(ComponentRef.of(TenantRegistry.class))
+          .get();
+
+      assertEquals("tenant-1", registry.tenants.create("tenant-1").id);
+    }
+
+    @Test
+    public void should_create_singleton_once_per_key() {
+      config.bindFactory(Tenant.class, KeyedTenant.class);
+
+      Factory<Tenant> factory = config.getContext().get(new ComponentRef<Factory<Tenant>>() {
+      }).get();
+
+      assertSame(factory.create("tenant-1"), factory.create("tenant-1"));
+      assertNotSame(factory.create("tenant-1"), factory.create("tenant-2"));
+      assertNotSame(factory.create("tenant-1"),
+          config.getContext().get(new ComponentRef<Factory<Tenant>>() {
+          }).get().create("tenant-1"));
+    }
+
+    @Test
+    public void should_create_other_keys_while_constructing_keyed_instance() {
+      config.bindFactory(Tenant.class, NestedTenant.class);
+
+      Factory<Tenant> factory = config.getContext().get(new ComponentRef<Factory<Tenant>>() {
+      }).get();
+      NestedTenant tenant = (NestedTenant) factory.create("a/b/c");
+
+      assertSame(factory.create("a/b"), tenant.parent);
+      assertSame(factory.create("a"), ((NestedTenant) tenant.parent).parent);
+    }
+
+    @Test
+    public void should_destroy_keyed_instances_when_context_closed() {
+      config.bindFactory(Tenant.class, ClosingTenant.class);
+      Context context = config.getContext();
+      Factory<Tenant> factory = context.get(new ComponentRef<Factory<Tenant>>() {
+      }).get();
+      ClosingTenant tenant = (ClosingTenant) factory.create("tenant-1");
+
+      context.close();
+
+      assertTrue(tenant.closed);
+    }
+
+    @Test
+    public void should_not_retrieve_factory_bound_component_directly() {
+      config.bindFactory(Tenant.class, Tenant.class);
+      Context context = config.getContext();
+
+      assertTrue(context.get(ComponentRef.of(Tenant.class)).isEmpty());
+      assertTrue(context.get(new ComponentRef<Provider<Tenant>>() {
+      }).isEmpty());
+    }
+
+    @Test
+    public void should_throw_exception_if_factory_bound_component_has_other_scope() {
+      config.scope(PerTenant.class, SingletonProvider::new);
+
+      assertThrows(IllegalComponentException.class,
+          () -> config.bindFactory(Tenant.class, PerTenantTenant.class));
+    }
+
+    @Test
+    public void should_throw_exception_if_assisted_component_bound_without_factory() {
+      assertThrows(IllegalComponentException.class,
+          () -> config.bind(Tenant.class, Tenant.class));
+    }
+
+    @Test
+    public void should_throw_exception_if_factory_bound_component_injected_directly() {
+      config.bindFactory(Tenant.class, Tenant.class);
+      config.bind(TenantConsumer.class, TenantConsumer.class);
+
+      DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class,
+          () -> config.getContext());
+      assertEquals(Tenant.class, exception.getDependency().type());
+    }
+
+    @Test
+    public void should_throw_exception_if_assisted_arguments_mismatch() {
+      config.bindFactory(Tenant.class, Tenant.class);
+
+      Factory<Tenant> factory = config.getContext().get(new ComponentRef<Factory<Tenant>>() {
+      }).get();
+
+      assertThrows(IllegalArgumentException.class, () -> factory.create());
+    }
+  }
+
+  static List<RecordedEvent> record(Runnable action, String... events) throws Exception {
+    Path dump = Files.createTempFile("events", ".jfr");
+    try (Recording recording = new Recording()) {
+      stream(events).forEach(recording::enable);
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(dump);
+      return RecordingFile.readAllEvents(dump).stream()
+          .filter(event -> List.of(events).contains(event.getEventType().getName())).toList();
+    } finally {
+      Files.delete(dump);
+    }
+  }
+
+  @Nested
+  public class ResolutionTracing {
+
+    List<RecordedEvent> record(Runnable resolution) throws Exception {
+      return ContextTest.record(resolution, "com.tdd.study.Resolution");
+    }
+
+    @Test
+    public void should_emit_resolution_tree_of_sampled_call() throws Exception {
+      config.trace(1);
+      config.bind(Dependency.class, SingletonAnnotated.class);
+      config.bind(TestComponent.class, ConstructorInject.class);
+      Context context = config.getContext();
+
+      List<RecordedEvent> events = record(() -> {
+        context.get(ComponentRef.of(TestComponent.class));
+        context.get(ComponentRef.of(TestComponent.class));
+      });
+
+      assertEquals(4, events.size());
+      RecordedEvent root = events.stream().filter(event -> event.getLong("parent") == 0)
+          .filter(event -> event.getLong("trace") == events.get(0).getLong("trace"))
+          .findFirst().get();
+      RecordedEvent child = events.stream()
+          .filter(event -> event.getLong("trace") == root.getLong("trace"))
+          .filter(event -> event.getLong("parent") == root.getLong("node")).findFirst().get();
+      assertEquals(TestComponent.class.getName(), root.getClass("component").getName());
+      assertEquals("prototype", root.getString("scope"));
+      assertEquals("singleton", child.getString("scope"));
+      assertEquals(List.of(false, true), events.stream()
+          .filter(event -> event.getString("scope").equals("singleton"))
+          .sorted(Comparator.comparingLong(event -> event.getLong("trace")))
+          .map(event -> event.getBoolean("hit")).toList());
+    }
+
+    @Test
+    public void should_not_emit_events_for_calls_not_sampled() throws Exception {
+      config.trace(0);
+      config.bind(NotSingleton.class, NotSingleton.class);
+      Context context = config.getContext();
+
+      assertTrue(record(() -> context.get(ComponentRef.of(NotSingleton.class))).isEmpty());
+    }
+
+    @Test
+    public void should_throw_exception_if_sampling_rate_out_of_range() {
+      assertThrows(IllegalArgumentException.class, () -> config.trace(1.5));
+    }
+  }
+
+  @Nested
+  public class StartupEvents {
+
+    static List<String> namesOf(List<RecordedEvent> events) {
+      return events.stream().map(event -> event.getEventType().getName()).toList();
+    }
+
+    @Test
+    public void should_emit_bind_event_with_injection_points_found() throws Exception {
+      List<RecordedEvent> events = record(
+          () -> config.bind(TestComponent.class, ConstructorInject.class), "com.tdd.study.Bind");
+
+      assertEquals(1, events.size());
+      assertEquals(ConstructorInject.class.getName(),
+          events.get(0).getClass("implementation").getName());
+      assertEquals(1, events.get(0).getInt("dependencies"));
+    }
+
+    @Test
+    public void should_emit_validation_and_singleton_creation_events() throws Exception {
+      config.bind(Dependency.class, SingletonAnnotated.class);
+      config.bind(TestComponent.class, ConstructorInject.class);
+
+      List<RecordedEvent> events = record(() -> {
+        Context context = config.getContext();
+        context.get(ComponentRef.of(TestComponent.class));
+        context.get(ComponentRef.of(TestComponent.class));
+      }, "com.tdd.study.Validation", "com.tdd.study.SingletonCreation");
+
+      assertEquals(List.of("com.tdd.study.Validation", "com.tdd.study.Validation",
+              "com.tdd.study.SingletonCreation"),
+          namesOf(events.stream().sorted(Comparator.comparing(RecordedEvent::getStartTime))
+              .toList()));
+    }
+
+    @Test
+    public void should_emit_validation_event_per_component() throws Exception {
+      config.bind(Dependency.class, SingletonAnnotated.class);
+      config.bind(TestComponent.class, ConstructorInject.class);
+
+      List<RecordedEvent> events = record(() -> config.getContext(), "com.tdd.study.Validation");
+
+      assertEquals(Set.of(Dependency.class.getName(), TestComponent.class.getName()),
+          events.stream().map(event -> event.getClass("component").getName())
+              .collect(Collectors.toSet()));
+      assertTrue(events.stream().anyMatch(
+          event -> event.getClass("component").getName().equals(TestComponent.class.getName())
+              && event.getInt("dependencies") == 1));
+    }
+
+    @Test
+    public void should_emit_scan_event_per_scanned_component() throws Exception {
+      List<RecordedEvent> events = record(() -> config.scan("com.tdd.study.scan"),
+          "com.tdd.study.Scan");
+
+      assertTrue(events.stream().anyMatch(
+          event -> event.getClass("component").getName().equals(ScannedService.class.getName())
+              && event.getBoolean("fromClassFile")));
+    }
+  }
+
+  @Nested
+  public class DependencyValidation {
+
+    static class ComponentWithInjectConstructor implements TestComponent {
+
+      private Dependency dependency;
+
+      @Inject
+      public ComponentWithInjectConstructor(Dependency dependency) {
+        this.dependency = dependency;
+      }
+
+      public Dependency getDependency() {
+        return dependency;
+      }
+
+    }
+
+    // transitive_dependency also included
+    static Stream<Arguments> componentMissDependencyClassProvider() {
+      return Stream.of(Arguments.of(Named.of("Constructor Inject", ConstructorInject.class)),
+          Arguments.of(Named.of("Field Inject", FieldInject.class)),
+          Arguments.of(Named.of("Method Inject", MethodInject.class)),
+          Arguments.of(Named.of("Constructor Inject Provider", ConstructorInjectProvider.class)),
+          Arguments.of(Named.of("Field Inject Provider", FieldInjectProvider.class)),
+          Arguments.of(Named.of("Method Inject Provider", MethodInjectProvider.class)),
+          Arguments.of(Named.of("Missing dependency scoped", DependencyScoped.class)),
+          Arguments.of(
+              Named.of("Missing dependency provider scoped", DependencyProviderScoped.class)));
+
+    }
+
+    @ParameterizedTest
+    @MethodSource("componentMissDependencyClassProvider")
+    public void should_throw_exception_if_dependency_not_found(
+        Class<? extends TestComponent> componentType) {
+      config.bind(TestComponent.class, componentType);
+
+      DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class,
+          () -> config.getContext());
+      assertEquals(TestComponent.class, exception.getComponent().type());
+      assertEquals(Dependency.class, exception.getDependency().type());
+
+    }
+
+    static class DependencyDependOnComponent implements Dependency {
+
+      private TestComponent component;
+
+      @Inject
+      public DependencyDependOnComponent(TestComponent component) {
+        this.component = component;
+      }
+    }
+
+    // A->B, B->A
+    @Test
+    public void should_throw_exception_if_cyclic_dependencies_found() {
+      config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+      config.bind(Dependency.class, DependencyDependOnComponent.class);
+
+      CyclicDependenciesFoundException exception = assertThrows(
+          CyclicDependenciesFoundException.class,
+          () -> config.getContext());
+
+      List<Class<?>> components = exception.getComponents();
+
+      assertTrue(components.contains(TestComponent.class));
+      assertTrue(components.contains(Dependency.class));
+
+    }
+
+    static class DependencyDependOnAnotherDependency implements Dependency {
+
+      private AnotherDependency anotherDependency;
+
+      @Inject
+      public DependencyDependOnAnotherDependency(AnotherDependency anotherDependency) {
+        this.anotherDependency = anotherDependency;
+      }
+    }
+
+    interface AnotherDependency {
+
+    }
+
+    static class AnotherDependencyDependOnComponent implements AnotherDependency {
+
+      private TestComponent component;
+
+      @Inject
+      public AnotherDependencyDependOnComponent(TestComponent component) {
+        this.component = component;
+      }
+    }
+
+    // A->B, B->C, C->A
+    @Test
+    public void should_throw_exception_if_transitive_cyclic_dependencies_found() {
+      config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+      config.bind(Dependency.class, DependencyDependOnAnotherDependency.class);
+      config.bind(AnotherDependency.class, AnotherDependencyDependOnComponent.class);
+
+      CyclicDependenciesFoundException exception = assertThrows(
+          CyclicDependenciesFoundException.class,
+          () -> config.getContext());
 
       List<Class<?>> components = exception.getComponents();
       assertTrue(components.contains(TestComponent.class));
@@ -523,6 +2012,27 @@ public class ContextTest {
 
     }
 
+    static class ComponentCallingProviderInConstructor implements TestComponent {
+
+      @Inject
+      public ComponentCallingProviderInConstructor(Provider<Dependency> dependency) {
+        dependency.get();
+      }
+    }
+
+    @Test
+    public void should_throw_exception_if_cyclic_dependencies_found_during_construction() {
+      config.bind(TestComponent.class, ComponentCallingProviderInConstructor.class);
+      config.bind(Dependency.class, DependencyDependOnComponent.class);
+      Context context = config.getContext();
+
+      CyclicDependenciesFoundException exception = assertThrows(
+          CyclicDependenciesFoundException.class,
+          () -> context.get(ComponentRef.of(TestComponent.class)));
+
+      assertEquals(List.of(TestComponent.class, Dependency.class), exception.getComponents());
+    }
+
     @Nested
     public class WithScope {
 
@@ -571,6 +2081,61 @@ public class ContextTest {
       assertSame(chosenOne.getDependency(), skywalker.getDependency());
     }
 
+    @Test
+    public void should_retrieve_component_by_qualifier_equal_to_the_bound_one() throws Exception {
+      TestComponent instance = new TestComponent() {
+      };
+      config.bind(TestComponent.class, instance, new NamedLiteral("ChosenOne"));
+      Context context = config.getContext();
+
+      jakarta.inject.Named annotated = QualifiedField.class.getDeclaredField("chosenOne")
+          .getAnnotation(jakarta.inject.Named.class);
+
+      assertSame(instance, context.get(ComponentRef.of(TestComponent.class, annotated)).get());
+      assertTrue(context.get(ComponentRef.of(TestComponent.class, new NamedLiteral("Another")))
+          .isEmpty());
+      assertTrue(context.get(ComponentRef.of(TestComponent.class)).isEmpty());
+    }
+
+    @Test
+    public void should_give_equal_qualifiers_the_same_id() throws Exception {
+      jakarta.inject.Named annotated = QualifiedField.class.getDeclaredField("chosenOne")
+          .getAnnotation(jakarta.inject.Named.class);
+
+      QualifierIds ids = new QualifierIds();
+
+      assertEquals(ids.of(new NamedLiteral("ChosenOne")), ids.of(annotated));
+      assertNotEquals(ids.of(new NamedLiteral("Another")), ids.of(annotated));
+      assertNotEquals(ids.of(new SkywalkerLiteral()), ids.of(annotated));
+      assertEquals(0, ids.of(null));
+      assertEquals(-1, new QualifierIds().find(annotated));
+    }
+
+    @Test
+    public void should_retrieve_components_bound_with_many_qualifiers_of_one_type() {
+      List<TestComponent> instances = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        TestComponent instance = new TestComponent() {
+        };
+        instances.add(instance);
+        config.bind(TestComponent.class, instance, new NamedLiteral("component" + i));
+      }
+      Context context = config.getContext();
+
+      for (int i = 0; i < 100; i++) {
+        assertSame(instances.get(i), context.get(
+            ComponentRef.of(TestComponent.class, new NamedLiteral("component" + i))).get());
+      }
+      assertTrue(context.get(ComponentRef.of(TestComponent.class, new NamedLiteral("component")))
+          .isEmpty());
+    }
+
+    static class QualifiedField {
+
+      @jakarta.inject.Named("ChosenOne")
+      TestComponent chosenOne;
+    }
+
     @Test
     public void should_throw_exception_if_illegal_qualifier_given_to_instance() {
       TestComponent instance = new TestComponent() {
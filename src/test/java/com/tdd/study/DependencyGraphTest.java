@@ -0,0 +1,133 @@
+package com.tdd.study;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tdd.study.ContextTest.DependencyValidation.ComponentWithInjectConstructor;
+import com.tdd.study.ContextTest.DependencyValidation.CyclicDependencyProviderConstructor;
+import com.tdd.study.ContextTest.DependencyValidation.DependencyDependOnComponent;
+import com.tdd.study.ContextTest.TypeBinding.WithScope.SingletonAnnotated;
+import com.tdd.study.DependencyGraph.Edge;
+import com.tdd.study.DependencyGraph.Node;
+import com.tdd.study.exception.CyclicDependenciesFoundException;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DependencyGraphTest {
+
+  ContextConfig config;
+
+  @BeforeEach
+  public void setUp() {
+    config = new ContextConfig();
+  }
+
+  @Test
+  public void should_mark_edge_as_direct_or_via_provider() {
+    config.bind(Dependency.class, CyclicDependencyProviderConstructor.class);
+    config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+
+    List<Edge> edges = config.getDependencyGraph().getEdges();
+
+    assertTrue(edges.contains(new Edge(new Component(TestComponent.class, null),
+        new Component(Dependency.class, null), false)));
+    assertTrue(edges.contains(new Edge(new Component(Dependency.class, null),
+        new Component(TestComponent.class, null), true)));
+  }
+
+  @Test
+  public void should_annotate_node_with_scope() {
+    config.bind(Dependency.class, SingletonAnnotated.class);
+    config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+    config.bind(String.class, "instance");
+
+    Map<Class<?>, Node> nodes = nodesByType(config.getDependencyGraph());
+
+    assertSame(Singleton.class, nodes.get(Dependency.class).scope());
+    assertEquals("prototype", nodes.get(TestComponent.class).scopeName());
+    assertEquals("instance", nodes.get(String.class).scopeName());
+  }
+
+  @Test
+  public void should_not_export_graph_if_cyclic_dependencies_found() {
+    config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+    config.bind(Dependency.class, DependencyDependOnComponent.class);
+
+    assertThrows(CyclicDependenciesFoundException.class, () -> config.getDependencyGraph());
+  }
+
+  static class Leaf {
+
+  }
+
+  static class Middle {
+
+    @Inject
+    public Middle(Leaf leaf) {
+    }
+  }
+
+  static class Root {
+
+    @Inject
+    public Root(Middle middle, Leaf leaf) {
+    }
+  }
+
+  @Test
+  public void should_count_fan_in_with_hot_spot_first() {
+    config.bind(Leaf.class, Leaf.class);
+    config.bind(Middle.class, Middle.class);
+    config.bind(Root.class, Root.class);
+
+    Map<Component, Long> fanIn = config.getDependencyGraph().fanIn();
+
+    assertEquals(new Component(Leaf.class, null), fanIn.keySet().iterator().next());
+    assertEquals(2, fanIn.get(new Component(Leaf.class, null)).intValue());
+    assertEquals(0, fanIn.get(new Component(Root.class, null)).intValue());
+  }
+
+  @Test
+  public void should_find_critical_path_along_direct_dependencies() {
+    config.bind(Leaf.class, Leaf.class);
+    config.bind(Middle.class, Middle.class);
+    config.bind(Root.class, Root.class);
+    DependencyGraph graph = config.getDependencyGraph();
+
+    graph.measure(config.getContext());
+
+    assertEquals(List.of(new Component(Root.class, null), new Component(Middle.class, null),
+        new Component(Leaf.class, null)), graph.criticalPath());
+    assertTrue(graph.getCost(new Component(Leaf.class, null)).isPresent());
+  }
+
+  @Test
+  public void should_export_graph_as_dot_and_json() {
+    config.bind(Dependency.class, CyclicDependencyProviderConstructor.class);
+    config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+    DependencyGraph graph = config.getDependencyGraph();
+
+    String dot = graph.toDot();
+    assertTrue(dot.contains("\"" + TestComponent.class.getName() + "\" -> \""
+        + Dependency.class.getName() + "\";"));
+    assertTrue(dot.contains("[style=dashed]"));
+
+    String json = graph.toJson();
+    assertTrue(json.contains("\"provider\":true"));
+    assertTrue(json.contains("\"cost\":null"));
+    assertFalse(json.contains("\n"));
+  }
+
+  private static Map<Class<?>, Node> nodesByType(DependencyGraph graph) {
+    return graph.getNodes().stream()
+        .collect(Collectors.toMap(node -> node.component().type(), node -> node));
+  }
+}
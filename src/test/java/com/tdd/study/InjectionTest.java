@@ -2,6 +2,7 @@ package com.tdd.study;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -16,6 +17,8 @@ import com.tdd.study.exception.IllegalComponentException;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Provider;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -595,4 +598,139 @@ public class InjectionTest {
     }
 
   }
+
+  @Nested
+  public class GeneratedProvider {
+
+    static class SuperWithInjectMethod {
+
+      Dependency superDependency;
+
+      @Inject
+      void install(Dependency dependency) {
+        superDependency = dependency;
+      }
+    }
+
+    static class ComponentWithAllInjections extends SuperWithInjectMethod {
+
+      final Dependency constructorDependency;
+
+      @Inject
+      Dependency fieldDependency;
+
+      Provider<Dependency> methodDependency;
+
+      @Inject
+      public ComponentWithAllInjections(Dependency dependency) {
+        constructorDependency = dependency;
+      }
+
+      @Inject
+      String install(Provider<Dependency> provider) {
+        methodDependency = provider;
+        return "installed";
+      }
+    }
+
+    ComponentWithAllInjections createRepeatedly(
+        InjectionProvider<ComponentWithAllInjections> provider) {
+      ComponentWithAllInjections instance = null;
+      for (int i = 0; i < 20; i++) {
+        instance = provider.get(context);
+      }
+      return instance;
+    }
+
+    @Test
+    public void should_generate_provider_for_component_created_repeatedly() {
+      InjectionProvider<ComponentWithAllInjections> provider = new InjectionProvider<>(
+          ComponentWithAllInjections.class);
+
+      ComponentWithAllInjections instance = createRepeatedly(provider);
+
+      assertTrue(provider.isGenerated());
+      assertSame(dependency, instance.constructorDependency);
+      assertSame(dependency, instance.fieldDependency);
+      assertSame(dependency, instance.superDependency);
+      assertSame(dependencyProvider, instance.methodDependency);
+    }
+
+    @Test
+    public void should_not_generate_provider_for_component_created_few_times() {
+      InjectionProvider<ComponentWithAllInjections> provider = new InjectionProvider<>(
+          ComponentWithAllInjections.class);
+
+      provider.get(context);
+
+      assertFalse(provider.isGenerated());
+    }
+
+    static class ComponentThrowsInConstructor {
+
+      static boolean fail;
+
+      @Inject
+      public ComponentThrowsInConstructor(Dependency dependency) {
+        if (fail) {
+          throw new IllegalStateException();
+        }
+      }
+    }
+
+    @Test
+    public void should_rethrow_exception_from_generated_provider() {
+      InjectionProvider<ComponentThrowsInConstructor> provider = new InjectionProvider<>(
+          ComponentThrowsInConstructor.class);
+      for (int i = 0; i < 20; i++) {
+        provider.get(context);
+      }
+      assertTrue(provider.isGenerated());
+      ComponentThrowsInConstructor.fail = true;
+
+      try {
+        assertThrows(IllegalStateException.class, () -> provider.get(context));
+      } finally {
+        ComponentThrowsInConstructor.fail = false;
+      }
+    }
+
+    static class ComponentThrowsCheckedInConstructor {
+
+      static boolean fail;
+
+      @Inject
+      public ComponentThrowsCheckedInConstructor(Dependency dependency) throws IOException {
+        if (fail) {
+          throw new IOException();
+        }
+      }
+    }
+
+    @Test
+    public void should_wrap_checked_exception_alike_before_and_after_generation() {
+      InjectionProvider<ComponentThrowsCheckedInConstructor> provider = new InjectionProvider<>(
+          ComponentThrowsCheckedInConstructor.class);
+      try {
+        ComponentThrowsCheckedInConstructor.fail = true;
+        RuntimeException reflective = assertThrows(RuntimeException.class,
+            () -> provider.get(context));
+        ComponentThrowsCheckedInConstructor.fail = false;
+        for (int i = 0; i < 20; i++) {
+          provider.get(context);
+        }
+        assertTrue(provider.isGenerated());
+        ComponentThrowsCheckedInConstructor.fail = true;
+        RuntimeException generated = assertThrows(RuntimeException.class,
+            () -> provider.get(context));
+
+        assertTrue(reflective.getCause() instanceof InvocationTargetException);
+        assertTrue(generated.getCause() instanceof InvocationTargetException);
+        assertTrue(reflective.getCause().getCause() instanceof IOException);
+        assertTrue(generated.getCause().getCause() instanceof IOException);
+      } finally {
+        ComponentThrowsCheckedInConstructor.fail = false;
+      }
+    }
+  }
 }
@@ -0,0 +1,9 @@
+package com.tdd.study.scan;
+
+import jakarta.inject.Inject;
+
+public abstract class AbstractComponent {
+
+  @Inject
+  ScannedRepository repository;
+}
@@ -0,0 +1,5 @@
+package com.tdd.study.scan;
+
+public class NotComponent {
+
+}
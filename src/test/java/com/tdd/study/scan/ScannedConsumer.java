@@ -0,0 +1,19 @@
+package com.tdd.study.scan;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Provider;
+
+public class ScannedConsumer {
+
+  @Inject
+  @Named("scanned")
+  public ScannedNamed named;
+
+  public Provider<ScannedService> service;
+
+  @Inject
+  public void install(Provider<ScannedService> service) {
+    this.service = service;
+  }
+}
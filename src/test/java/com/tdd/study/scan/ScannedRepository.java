@@ -0,0 +1,8 @@
+package com.tdd.study.scan;
+
+import jakarta.inject.Singleton;
+
+@Singleton
+public class ScannedRepository {
+
+}
@@ -0,0 +1,17 @@
+package com.tdd.study.scan;
+
+import jakarta.inject.Inject;
+
+public class ScannedService {
+
+  private final ScannedRepository repository;
+
+  @Inject
+  public ScannedService(ScannedRepository repository) {
+    this.repository = repository;
+  }
+
+  public ScannedRepository getRepository() {
+    return repository;
+  }
+}